@@ -0,0 +1,179 @@
+package com.skycatdev.binarysearchtool;
+
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What was asked for on the command line. Everything after {@code --} is a test command, which means batch mode.
+ *
+ * @param modsPath      The mods folder, or {@code null} to ask for it.
+ * @param gui           If the window should be used instead of the terminal.
+ * @param options       Settings for the search.
+ * @param command       The command to test with, or empty if the user answers instead.
+ * @param directory     Where to run the command, or {@code null} for the folder the mods folder is in.
+ * @param server        If the command's output should be read like a Fabric server's, instead of just its exit code.
+ * @param timeout       How long a test can take before it counts as a failure.
+ * @param output        Where to write the {@link SearchReport}, or {@code null} for standard output.
+ * @param events        A file or {@code host:port} to stream {@link SearchEvent}s to, or {@code null} to not.
+ * @param logLevel      The lowest level of messages to show in the terminal.
+ * @param sandboxes     How many sandboxes to test in at once, or {@code 0} to test in the instance one step at a time.
+ * @param sandboxFolder Where to make the sandboxes, or {@code null} if there aren't any.
+ */
+public record Arguments(@Nullable Path modsPath, boolean gui, SearchOptions options, List<String> command,
+                        @Nullable Path directory, boolean server, Duration timeout, @Nullable Path output,
+                        @Nullable String events, Log.Level logLevel, int sandboxes, @Nullable Path sandboxFolder) {
+    public static final String USAGE = """
+            Usage: BinarySearchTool [<mods folder>] [options] [-- <test command>...]
+              --gui                     Use the window instead of the terminal
+              --strategy <name>         How to search: bisect, delta_debug, or probabilistic
+              --staging <folder>        Link enabled mods into this folder instead of renaming jars. Not in the mods folder
+              --force <id>[,<id>...]    Force-enable mods by id. Can be used more than once
+              --no-cache                Don't remember mods between runs
+              --events <file|host:port> Stream what happens as json lines to a file or a tcp listener
+              --log-level <level>       What to show in the terminal: trace, debug, info, warn, or error
+            Batch mode, when there's a test command. Exiting with 0 means the problem is gone:
+              --directory <folder>      Where to run the command. Defaults to the folder the mods folder is in
+              --server                  Read the command's output like a Fabric server's, not just its exit code
+              --timeout <seconds>       How long a test can take before it counts as a failure. Defaults to 300
+              --output <file>           Write the JSON result here instead of to standard output
+              --resume                  Continue an unfinished search of the same mods instead of starting over
+              --sandboxes <count>       Test this many sets at once, each in a copy of the instance. Needs --staging.
+                                        Each copied server.properties gets its own ports (the instance's plus 1, 2...),
+                                        so those must be free. Other ports the mods open aren't changed
+              --sandbox-folder <folder> Where to make the copies. Must not be inside the instance""";
+
+    /**
+     * @throws IllegalArgumentException If the arguments don't make sense. The message says why.
+     */
+    public static Arguments parse(String[] args) throws IllegalArgumentException {
+        @Nullable Path modsPath = null;
+        boolean gui = false;
+        SearchOptions options = new SearchOptions();
+        ArrayList<String> forceEnabled = new ArrayList<>();
+        List<String> command = List.of();
+        @Nullable Path directory = null;
+        boolean server = false;
+        Duration timeout = Duration.ofMinutes(5);
+        @Nullable Path output = null;
+        @Nullable String events = null;
+        Log.Level logLevel = Log.Level.INFO;
+        int sandboxes = 0;
+        @Nullable Path sandboxFolder = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--" -> {
+                    command = List.of(Arrays.copyOfRange(args, i + 1, args.length));
+                    if (command.isEmpty()) {
+                        throw new IllegalArgumentException("There's no test command after --");
+                    }
+                    i = args.length;
+                }
+                case "--gui" -> gui = true;
+                case "--strategy" -> {
+                    String name = value(args, ++i, arg);
+                    try {
+                        options.strategy(SearchStrategy.Type.valueOf(name.toUpperCase(Locale.ROOT)));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown strategy " + name);
+                    }
+                }
+                case "--staging" -> options.stagingFolder(Path.of(value(args, ++i, arg)));
+                case "--force" -> {
+                    for (String id : value(args, ++i, arg).split(",")) {
+                        if (!id.isBlank()) {
+                            forceEnabled.add(id.strip());
+                        }
+                    }
+                }
+                case "--no-cache" -> options.cacheMods(false);
+                case "--directory" -> directory = Path.of(value(args, ++i, arg));
+                case "--server" -> server = true;
+                case "--timeout" -> {
+                    String seconds = value(args, ++i, arg);
+                    try {
+                        timeout = Duration.ofSeconds(Long.parseLong(seconds));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The timeout should be a number of seconds, not " + seconds);
+                    }
+                }
+                case "--output" -> output = Path.of(value(args, ++i, arg));
+                case "--resume" -> options.resume(true);
+                case "--events" -> events = value(args, ++i, arg);
+                case "--log-level" -> {
+                    String name = value(args, ++i, arg);
+                    try {
+                        logLevel = Log.Level.parse(name);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown log level " + name);
+                    }
+                }
+                case "--sandboxes" -> {
+                    String count = value(args, ++i, arg);
+                    try {
+                        sandboxes = Integer.parseInt(count);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The number of sandboxes should be a number, not " + count);
+                    }
+                    if (sandboxes < 1) {
+                        throw new IllegalArgumentException("There has to be at least one sandbox");
+                    }
+                }
+                case "--sandbox-folder" -> sandboxFolder = Path.of(value(args, ++i, arg));
+                default -> {
+                    if (arg.startsWith("--") || modsPath != null) {
+                        throw new IllegalArgumentException("Unknown argument " + arg);
+                    }
+                    modsPath = Path.of(arg);
+                }
+            }
+        }
+        options.forceEnabled(forceEnabled);
+        if (modsPath != null && options.stagingFolder() != null) {
+            StagingSwitcher.checkFolders(modsPath, options.stagingFolder());
+        }
+        if (!command.isEmpty()) {
+            if (modsPath == null) {
+                throw new IllegalArgumentException("Batch mode needs a mods folder");
+            }
+            if (gui) {
+                throw new IllegalArgumentException("Batch mode can't use the window");
+            }
+        }
+        if (sandboxes > 0) {
+            if (command.isEmpty()) {
+                throw new IllegalArgumentException("Sandboxes need a test command");
+            }
+            if (options.stagingFolder() == null) {
+                throw new IllegalArgumentException("Sandboxes need --staging, so the mods folder isn't changed while they link to it");
+            }
+            if (sandboxFolder == null) {
+                throw new IllegalArgumentException("Sandboxes need --sandbox-folder");
+            }
+            if (directory != null) {
+                throw new IllegalArgumentException("Sandbox tests run in their own sandbox, so --directory can't be used");
+            }
+        } else if (sandboxFolder != null) {
+            throw new IllegalArgumentException("--sandbox-folder needs --sandboxes");
+        }
+        return new Arguments(modsPath, gui, options, command, directory, server, timeout, output, events, logLevel, sandboxes, sandboxFolder);
+    }
+
+    private static String value(String[] args, int index, String flag) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(flag + " needs a value");
+        }
+        return args[index];
+    }
+
+    public boolean batch() {
+        return !command.isEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+package com.skycatdev.binarysearchtool;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands entries to another appender on its own thread, so logging never waits on a console or disk.
+ * Entries wait in a fixed-size ring. If it fills up, the oldest entries are overwritten, and a message says how many
+ * were lost.
+ */
+public class AsyncAppender implements Log.Appender {
+    public static final int DEFAULT_CAPACITY = 8192;
+    /**
+     * The longest {@link AsyncAppender#flush()} waits, so a stuck appender can't hang the program on exit
+     */
+    private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+    private final Log.Appender delegate;
+    private final Log.Entry[] ring;
+    /**
+     * Total entries ever appended. The next one goes at {@code written % ring.length}.
+     */
+    private long written = 0;
+    /**
+     * Total entries taken out of the ring, counting overwritten ones
+     */
+    private long read = 0;
+    /**
+     * Total entries the delegate has been given
+     */
+    private long delivered = 0;
+    private long dropped = 0;
+    private boolean closed = false;
+
+    /**
+     * @param delegate The appender to hand entries to. Only called from this appender's thread.
+     * @param capacity How many entries can wait at once.
+     */
+    public AsyncAppender(Log.Appender delegate, int capacity) {
+        this.delegate = delegate;
+        this.ring = new Log.Entry[capacity];
+        Thread thread = new Thread(this::deliver, "Log writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void append(Log.Entry entry) {
+        if (closed) {
+            return;
+        }
+        if (written - read == ring.length) {
+            // Full, so lose the oldest
+            read++;
+            dropped++;
+        }
+        ring[(int) (written % ring.length)] = entry;
+        written++;
+        notifyAll();
+    }
+
+    /**
+     * Waits for everything appended so far to be written by the delegate, for a couple seconds at most.
+     */
+    @Override
+    public synchronized void flush() {
+        long target = written;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_TIMEOUT_MILLIS);
+        // Overwritten entries are never delivered, so count them as done
+        while (delivered + dropped < target) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    private void deliver() {
+        ArrayList<Log.Entry> batch = new ArrayList<>();
+        long lastDropped = 0;
+        while (true) {
+            long droppedNow;
+            synchronized (this) {
+                while (read == written && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (read == written) {
+                    break;
+                }
+                for (; read < written; read++) {
+                    int index = (int) (read % ring.length);
+                    batch.add(ring[index]);
+                    ring[index] = null;
+                }
+                droppedNow = dropped;
+            }
+            if (droppedNow > lastDropped) {
+                delegate.append(new Log.Entry(System.currentTimeMillis(), Log.Level.WARN, Thread.currentThread().getName(),
+                        "Lost %d log messages because they came faster than they could be written".formatted(droppedNow - lastDropped)));
+                lastDropped = droppedNow;
+            }
+            for (Log.Entry entry : batch) {
+                delegate.append(entry);
+            }
+            delegate.flush();
+            synchronized (this) {
+                delivered += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+        delegate.close();
+    }
+}
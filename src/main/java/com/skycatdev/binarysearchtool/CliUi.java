@@ -1,14 +1,15 @@
 package com.skycatdev.binarysearchtool;
 
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Scanner;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class CliUi implements SearchUi {
     protected final DialogHandler dialogHandler = new DialogHandler();
@@ -34,10 +35,10 @@ public class CliUi implements SearchUi {
     }
 
     private void blockingDisplayOption(String text, Option[] options) {
-        System.out.println(text);
+        println(text);
         for (int i = 0; i < options.length; i++) {
             Option option = options[i];
-            System.out.println(option.name() + " [" + (i + 1) + "]");
+            println(option.name() + " [" + (i + 1) + "]");
         }
         Option chosen = null;
         while (chosen == null) {
@@ -59,7 +60,7 @@ public class CliUi implements SearchUi {
                 }
             }
             if (chosen == null) {
-                System.out.println("That was not an option!");
+                println("That was not an option!");
             }
         }
         if (chosen.callback() != null) {
@@ -67,13 +68,42 @@ public class CliUi implements SearchUi {
         }
     }
 
+    /**
+     * Prints a line after everything logged before it. Log messages are written on another thread, so without this,
+     * one a prompt depends on could show up after the prompt.
+     */
+    private static void println(String line) {
+        Log.flush();
+        System.out.println(line);
+    }
+
     private void displayStartMenu() {
         asyncDisplayOption("", "Ready to start?", MessageType.NONE, new Option[]{new Option("start", this::start), new Option("advanced", this::openAdvancedOptions)});
     }
 
+    private void chooseStrategy(SearchHandler searchHandler) {
+        SearchStrategy.Type[] types = SearchStrategy.Type.values();
+        for (int i = 0; i < types.length; i++) {
+            println(types[i].displayName + " [" + (i + 1) + "]");
+        }
+        int chosen = -1;
+        try {
+            chosen = Integer.parseInt(scanner.nextLine()) - 1;
+        } catch (NumberFormatException ignored) {
+
+        }
+        if (chosen < 0 || chosen >= types.length) {
+            println("That was not an option!");
+        } else if (searchHandler.setStrategy(types[chosen])) {
+            println("Success!");
+        } else {
+            println("The search has already started, so it can't be changed.");
+        }
+    }
+
     @Override
     public void failure() {
-        System.out.println("Working...");
+        println("Working...");
         if (getSearchHandler() != null) {
             getSearchHandler().bisect(false);
         }
@@ -98,20 +128,22 @@ public class CliUi implements SearchUi {
     @Override
     public void onFinished(ArrayList<Mod> problematicMods) {
         assert searchHandler != null : "searchHandler should be the one calling, why is it null?";
+        DialogHandler.Metrics metrics = dialogHandler.getMetrics();
+        Log.debug("Showed %d dialogs. They waited %d ms on average and %d ms at most, with up to %d queued at once".formatted(metrics.shown(), metrics.averageWaitMillis(), metrics.maxWaitMillis(), metrics.maxQueued()));
         if (problematicMods.size() == 1) {
-            System.out.printf("Finished! The problematic mod was: %s (%s)%n", problematicMods.get(0).name(), problematicMods.get(0).filename());
+            println("Finished! The problematic mod was: %s (%s)".formatted(problematicMods.get(0).name(), problematicMods.get(0).filename()));
         } else {
-            System.out.println("Finished! The following mods rely on each other, and one is the problem:");
+            println("Finished! The problem comes from these mods. Either they rely on each other and one is the problem, or it only happens when they're all there:");
             for (Mod problematicMod : problematicMods) {
-                System.out.printf("%s (%s)", problematicMod.name(), problematicMod.filename());
+                println("%s (%s)".formatted(problematicMod.name(), problematicMod.filename()));
             }
         }
         System.exit(0);
     }
 
     private void openAdvancedOptions() {
-        System.out.println("Advanced options");
-        System.out.println("Heh, the only thing we have is force-enabling mods. Type the id of the mod you'd like to force-enable, or \"back\" to go back");
+        println("Advanced options");
+        println("Type the id of the mod you'd like to force-enable, \"strategy\" to choose how to search, or \"back\" to go back");
         String id = scanner.nextLine();
         if (id.equals("back")) {
             displayStartMenu();
@@ -121,17 +153,22 @@ public class CliUi implements SearchUi {
             asyncDisplayOption("", "SearchHandler was not initialized when opening advanced options. Please report this.", MessageType.NONE, new Option[]{new Option("OK", () -> System.exit(-1))});
             return;
         }
+        if (id.equals("strategy")) {
+            chooseStrategy(getSearchHandler());
+            openAdvancedOptions();
+            return;
+        }
         if (getSearchHandler().forceEnable(id)) {
-            System.out.println("Success!");
+            println("Success!");
         } else {
-            System.out.println("Could not force enable mod. Either it was already force-enabled, or it does not exist.");
+            println("Could not force enable mod. Either it was already force-enabled, or it does not exist.");
         }
         openAdvancedOptions();
     }
 
     @Override
     public void sendInstructions(String instructions) {
-        System.out.println(instructions);
+        println(instructions);
     }
 
     @Override
@@ -155,25 +192,25 @@ public class CliUi implements SearchUi {
             asyncDisplayOption("", "SearchHandler was null when trying to display lists. Please report this.", MessageType.ERROR, new Option[]{new Option("OK", null)});
             return;
         }
-        System.out.println("Might be the problem:");
+        println("Might be the problem:");
         for (Mod mod : getSearchHandler().getCandidateMods()) {
-            System.out.println(mod.name());
+            println(mod.name());
         }
-        System.out.println();
-        System.out.println("Not the problem:");
+        println("");
+        println("Not the problem:");
         for (Mod mod : getSearchHandler().getWorkingMods()) {
-            System.out.println(mod.name());
+            println(mod.name());
         }
-        System.out.println();
-        System.out.println("Mods we're testing now:");
+        println("");
+        println("Mods we're testing now:");
         for (Mod mod : getSearchHandler().getTestingMods()) {
-            System.out.println(mod.name());
+            println(mod.name());
         }
     }
 
     @Override
     public void start() {
-        System.out.println("Starting, please wait...");
+        println("Starting, please wait...");
         if (getSearchHandler() != null) {
             getSearchHandler().bisect(true);
         }
@@ -181,7 +218,7 @@ public class CliUi implements SearchUi {
 
     @Override
     public void success() {
-        System.out.println("Working...");
+        println("Working...");
         if (getSearchHandler() != null) {
             getSearchHandler().bisect(true);
         }
@@ -197,33 +234,97 @@ public class CliUi implements SearchUi {
     }
 
     /**
-     * Runs every task on a new thread, waiting for each task to be done before starting the next.
+     * Runs every task on one worker thread, waiting for each task to be done before starting the next.
+     * The worker stops after a while without dialogs, so it doesn't keep the program running once nothing is left.
      */
     public static class DialogHandler {
-        protected final Queue<FutureTask<Void>> tasks = new LinkedList<>();
-        protected boolean running = false;
+        /**
+         * How long the worker waits for another dialog before stopping
+         */
+        private static final long KEEP_ALIVE_MILLIS = 10_000;
+        protected final LinkedBlockingQueue<QueuedDialog> tasks = new LinkedBlockingQueue<>();
+        /**
+         * The worker, or {@code null} if it's stopped
+         */
+        private @Nullable Thread worker = null;
+        private long shown = 0;
+        private int maxQueued = 0;
+        private long totalWaitNanos = 0;
+        private long maxWaitNanos = 0;
 
         public synchronized void display(@NotNull FutureTask<Void> dialogFuture) {
-            tasks.add(dialogFuture);
-            if (!running) {
-                runNext();
+            tasks.add(new QueuedDialog(dialogFuture, System.nanoTime()));
+            maxQueued = Math.max(maxQueued, tasks.size());
+            if (worker == null) {
+                startWorker();
             }
         }
 
-        private synchronized void runNext() {
-            running = true;
-            new Thread(() -> {
-                FutureTask<Void> future;
-                synchronized (DialogHandler.this) {
-                    future = tasks.poll();
-                    if (future == null) {
-                        running = false;
-                        return;
+        /**
+         * Must hold the lock on this.
+         */
+        private void startWorker() {
+            worker = new Thread(this::work, "Cli dialogs");
+            worker.start();
+        }
+
+        /**
+         * @return How many dialogs have been shown, and how long they waited in the queue.
+         */
+        public synchronized Metrics getMetrics() {
+            return new Metrics(shown, tasks.size(), maxQueued, shown == 0 ? 0 : totalWaitNanos / shown / 1_000_000, maxWaitNanos / 1_000_000);
+        }
+
+        private synchronized void recordShown(long waitNanos) {
+            shown++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        }
+
+        private void work() {
+            while (true) {
+                QueuedDialog dialog;
+                try {
+                    dialog = tasks.poll(KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    synchronized (this) {
+                        // Dialogs that were already queued would otherwise wait for the next one
+                        if (tasks.isEmpty()) {
+                            worker = null;
+                        } else {
+                            startWorker();
+                        }
                     }
+                    return;
                 }
-                future.run();
-                runNext();
-            }).start();
+                if (dialog == null) {
+                    synchronized (this) {
+                        // display() adds while holding the lock, so nothing can sneak in after this check
+                        if (tasks.isEmpty()) {
+                            worker = null;
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                long waitNanos = System.nanoTime() - dialog.queuedNanos();
+                recordShown(waitNanos);
+                Log.debug("Dialog waited %d ms, %d more queued".formatted(waitNanos / 1_000_000, tasks.size()));
+                dialog.future().run();
+            }
+        }
+
+        /**
+         * @param shown             How many dialogs have been shown.
+         * @param queued            How many dialogs are waiting right now.
+         * @param maxQueued         The most dialogs that have waited at once.
+         * @param averageWaitMillis How long dialogs waited before being shown, on average.
+         * @param maxWaitMillis     The longest a dialog waited before being shown.
+         */
+        public record Metrics(long shown, int queued, int maxQueued, long averageWaitMillis, long maxWaitMillis) {
+        }
+
+        protected record QueuedDialog(FutureTask<Void> future, long queuedNanos) {
         }
     }
 }
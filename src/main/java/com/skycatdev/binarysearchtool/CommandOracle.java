@@ -0,0 +1,195 @@
+package com.skycatdev.binarysearchtool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Tests by running a command, like a server jar with {@code nogui}, and watching its output, log file, and crash
+ * reports.
+ * A line matching a failure pattern means the problem is there, and a line matching a success pattern means it's gone.
+ * Failure patterns are checked first. If the command exits before any pattern matches, exiting with {@code 0} is a
+ * success. If it runs out of time, the timeout result is used. The command (and anything it started) is stopped once
+ * there's an answer.
+ */
+public class CommandOracle implements TestOracle {
+    /**
+     * How often to check if the command is still running
+     */
+    private static final long POLL_MILLIS = 200;
+    /**
+     * How long to wait for the command to stop politely before killing it
+     */
+    private static final long STOP_SECONDS = 15;
+    private final List<String> command;
+    private final Path directory;
+    private final ArrayList<Pattern> successPatterns = new ArrayList<>();
+    private final ArrayList<Pattern> failurePatterns = new ArrayList<>();
+    private Path logFile;
+    private Duration timeout = Duration.ofMinutes(5);
+    private boolean timeoutSuccessful = false;
+
+    /**
+     * @param command   The command to run, and its arguments.
+     * @param directory The folder to run it in, usually the instance or server folder.
+     */
+    public CommandOracle(List<String> command, Path directory) {
+        this.command = List.copyOf(command);
+        this.directory = directory;
+        this.logFile = directory.resolve("logs").resolve("latest.log");
+    }
+
+    /**
+     * Makes an oracle for a Fabric server: it's fixed when the server finishes starting, and still broken if it
+     * crashes or refuses to load mods.
+     *
+     * @param command   The command to start the server, like {@code java -jar fabric-server-launch.jar nogui}.
+     * @param directory The server folder.
+     */
+    public static CommandOracle forServer(List<String> command, Path directory) {
+        return new CommandOracle(command, directory)
+                .successPattern(Pattern.compile("Done \\([0-9.,]+s\\)!"))
+                .failurePattern(Pattern.compile("Exception in thread \"main\""))
+                .failurePattern(Pattern.compile("Incompatible mods? found!"))
+                .failurePattern(Pattern.compile("Failed to start the minecraft server"))
+                .failurePattern(Pattern.compile("This crash report has been saved to"))
+                .failurePattern(Pattern.compile("^---- Minecraft Crash Report ----"));
+    }
+
+    /**
+     * Stops the process and everything it started, politely at first.
+     */
+    private static void stop(Process process) throws InterruptedException {
+        List<ProcessHandle> descendants = process.descendants().toList();
+        descendants.forEach(ProcessHandle::destroy);
+        process.destroy();
+        if (!process.waitFor(STOP_SECONDS, TimeUnit.SECONDS)) {
+            Log.warn("Test command didn't stop, killing it");
+            descendants.forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    /**
+     * Completes the outcome if the line matches a pattern.
+     */
+    private void classify(String line, CompletableFuture<Boolean> outcome) {
+        for (Pattern failurePattern : failurePatterns) {
+            if (failurePattern.matcher(line).find()) {
+                if (outcome.complete(false)) {
+                    Log.info("Problem found: " + line);
+                }
+                return;
+            }
+        }
+        for (Pattern successPattern : successPatterns) {
+            if (successPattern.matcher(line).find()) {
+                if (outcome.complete(true)) {
+                    Log.info("Problem gone: " + line);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param pattern If a line of output or the log matches this, the problem is still there.
+     */
+    public CommandOracle failurePattern(Pattern pattern) {
+        failurePatterns.add(pattern);
+        return this;
+    }
+
+    /**
+     * @param logFile The log file to watch as well as the output. Defaults to {@code logs/latest.log}.
+     */
+    public CommandOracle logFile(Path logFile) {
+        this.logFile = logFile;
+        return this;
+    }
+
+    /**
+     * @param pattern If a line of output or the log matches this, the problem is gone.
+     */
+    public CommandOracle successPattern(Pattern pattern) {
+        successPatterns.add(pattern);
+        return this;
+    }
+
+    @Override
+    public boolean test() throws IOException, InterruptedException {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        LogWatcher logWatcher = new LogWatcher(logFile, directory.resolve("crash-reports"), (line, crashReport) -> classify(line, outcome));
+        Log.info("Running " + String.join(" ", command));
+        Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .start();
+        Thread outputReader = new Thread(() -> {
+            try (BufferedReader reader = process.inputReader()) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    classify(line, outcome);
+                }
+            } catch (IOException e) {
+                // The process was stopped
+            }
+        }, "Test output reader");
+        outputReader.setDaemon(true);
+        outputReader.start();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (!outcome.isDone()) {
+                if (!process.isAlive()) {
+                    // Read what's left before deciding from the exit code
+                    outputReader.join(TimeUnit.SECONDS.toMillis(1));
+                    logWatcher.catchUp();
+                    if (outcome.complete(process.exitValue() == 0)) {
+                        Log.info("Test command exited with " + process.exitValue());
+                    }
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    if (outcome.complete(timeoutSuccessful)) {
+                        Log.info("Test timed out");
+                    }
+                    break;
+                }
+                try {
+                    outcome.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException ignored) {
+
+                }
+            }
+        } finally {
+            stop(process);
+            logWatcher.close();
+        }
+        return outcome.getNow(timeoutSuccessful);
+    }
+
+    /**
+     * @param timeout How long to wait for an answer.
+     */
+    public CommandOracle timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * @param timeoutSuccessful If running out of time means the problem is gone. For example, if the problem is a
+     *                          crash, a game that's still running is fixed.
+     */
+    public CommandOracle timeoutSuccessful(boolean timeoutSuccessful) {
+        this.timeoutSuccessful = timeoutSuccessful;
+        return this;
+    }
+}
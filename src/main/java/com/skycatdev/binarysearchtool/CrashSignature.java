@@ -0,0 +1,146 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * What a crash looked like: the exception, the first frames that aren't Java or Minecraft, and the mods it names.
+ * Built a line at a time while a test runs (see {@link LogWatcher}). A crash report beats the log, and in the log, the
+ * last stack trace wins, since mods log plenty of exceptions that aren't crashes.
+ * Mods are named by mixin handlers ({@code handler$zza000$modid$...}), "from mod modid" in the mixin list of crash
+ * reports, and the jars in stack frames ({@code ~[modfile.jar:?]}).
+ */
+public class CrashSignature {
+    private static final Pattern EXCEPTION = Pattern.compile("^(Caused by: )?((?:[a-zA-Z_$][\\w$]*\\.)+[\\w$]*(?:Exception|Error|Throwable))(?::.*)?$");
+    private static final Pattern FRAME = Pattern.compile("^\\s+at (?:[\\w.$-]+/)*([\\w$.<>]+)\\(.*?\\)(?: ~?\\[([^]:]+\\.jar)[^]]*])?");
+    private static final Pattern MIXIN_HANDLER = Pattern.compile("\\$[a-z]{3}\\d{3}\\$([a-z][a-z0-9_-]*)\\$");
+    private static final Pattern FROM_MOD = Pattern.compile("from mod ([a-z][a-z0-9_-]*)");
+    private static final List<String> PLATFORM_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "net.minecraft.", "com.mojang.", "org.spongepowered.", "net.fabricmc.loader.", "com.google.", "org.apache.", "org.slf4j.", "io.netty.", "it.unimi.");
+    private static final int MAX_FRAMES = 5;
+    private final Trace crashReport = new Trace();
+    private Trace log = new Trace();
+    /**
+     * If the last log line was part of a stack trace
+     */
+    private boolean inLogTrace = false;
+
+    /**
+     * Reads a line of a log or crash report. Fits {@link LogWatcher.LineConsumer}.
+     */
+    public synchronized void accept(String line, boolean fromCrashReport) {
+        Matcher exception = EXCEPTION.matcher(line);
+        if (fromCrashReport) {
+            if (exception.matches()) {
+                crashReport.exception(exception.group(2), exception.group(1) != null);
+            }
+            crashReport.frame(line);
+            Matcher fromMod = FROM_MOD.matcher(line);
+            while (fromMod.find()) {
+                crashReport.modIds.add(fromMod.group(1));
+            }
+            return;
+        }
+        if (exception.matches()) {
+            if (exception.group(1) == null) {
+                // A new stack trace
+                log = new Trace();
+            }
+            log.exception(exception.group(2), exception.group(1) != null);
+            inLogTrace = true;
+        } else if (inLogTrace && !log.frame(line) && !line.stripLeading().startsWith("...")) {
+            inLogTrace = false;
+        }
+    }
+
+    private Trace best() {
+        return crashReport.isEmpty() ? log : crashReport;
+    }
+
+    public synchronized @Nullable String getExceptionType() {
+        return best().exceptionType;
+    }
+
+    /**
+     * @return The first few frames that aren't Java or Minecraft, as {@code class.method}.
+     */
+    public synchronized List<String> getFrames() {
+        return List.copyOf(best().frames);
+    }
+
+    /**
+     * @return The names of jars in the stack trace. May include jars that aren't mods.
+     */
+    public synchronized Set<String> getJarNames() {
+        return Set.copyOf(best().jarNames);
+    }
+
+    /**
+     * @return The ids of mods named in the crash. May include ids of mods that aren't in the mods folder.
+     */
+    public synchronized Set<String> getModIds() {
+        return Set.copyOf(best().modIds);
+    }
+
+    /**
+     * @return If nothing that looks like a crash was seen.
+     */
+    public synchronized boolean isEmpty() {
+        return best().isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        Trace trace = best();
+        return "%s at %s, naming %s".formatted(trace.exceptionType, trace.frames, trace.modIds.isEmpty() && trace.jarNames.isEmpty() ? "no mods" : String.join(", ", trace.modIds) + " " + String.join(", ", trace.jarNames));
+    }
+
+    private static class Trace {
+        private final ArrayList<String> frames = new ArrayList<>();
+        private final LinkedHashSet<String> modIds = new LinkedHashSet<>();
+        private final LinkedHashSet<String> jarNames = new LinkedHashSet<>();
+        private @Nullable String exceptionType = null;
+
+        /**
+         * @param causedBy If it's the cause of the last one. The deepest cause is the most useful.
+         */
+        private void exception(String type, boolean causedBy) {
+            if (exceptionType == null || causedBy) {
+                exceptionType = type;
+            }
+        }
+
+        /**
+         * @return If the line was a stack frame.
+         */
+        private boolean frame(String line) {
+            Matcher frame = FRAME.matcher(line);
+            if (!frame.find()) {
+                return false;
+            }
+            String method = frame.group(1);
+            Matcher handler = MIXIN_HANDLER.matcher(method);
+            boolean mixin = handler.find();
+            if (mixin) {
+                modIds.add(handler.group(1));
+            }
+            if (frame.group(2) != null) {
+                jarNames.add(frame.group(2));
+            }
+            // Mixin frames are in Minecraft classes, but they're mod code
+            if (frames.size() < MAX_FRAMES && (mixin || PLATFORM_PACKAGES.stream().noneMatch(method::startsWith))) {
+                frames.add(method);
+            }
+            return true;
+        }
+
+        private boolean isEmpty() {
+            return exceptionType == null && modIds.isEmpty() && jarNames.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.skycatdev.binarysearchtool;
+
+import java.util.*;
+
+/**
+ * The dependencies between mods, worked out once after discovery.
+ * Mods are numbered by their position in the list the graph was made from.
+ * Mods that depend on each other (directly or not) are grouped into a unit, since you can't enable one without the
+ * others. Every unit knows its closure: itself and everything it needs, directly or not.
+ */
+public class DependencyGraph {
+    /**
+     * Dependencies that every mod can have without them being mods in the folder
+     */
+    public static final Set<String> PLATFORM_IDS = Set.of("minecraft", "fabricloader", "java");
+    private final List<Mod> mods;
+    private final IdentityHashMap<Mod, Integer> indices = new IdentityHashMap<>();
+    /**
+     * Id -> The index of the mod that provides it. If more than one does, the first one wins.
+     */
+    private final HashMap<String, Integer> providers = new HashMap<>();
+    /**
+     * Mod index -> Indices of the mods it depends on
+     */
+    private final int[][] dependencies;
+    /**
+     * Mod index -> Unit index
+     */
+    private final int[] unitOf;
+    /**
+     * Unit index -> Indices of mods in the unit
+     */
+    private final ArrayList<BitSet> members = new ArrayList<>();
+    /**
+     * Unit index -> Indices of mods in the unit and everything it needs
+     */
+    private final ArrayList<BitSet> closures = new ArrayList<>();
+    private final TreeSet<String> missingDependencies = new TreeSet<>();
+
+    public DependencyGraph(List<Mod> mods) {
+        this.mods = List.copyOf(mods);
+        for (int i = 0; i < this.mods.size(); i++) {
+            Mod mod = this.mods.get(i);
+            indices.put(mod, i);
+            for (String id : mod.ids()) {
+                providers.putIfAbsent(id, i);
+            }
+        }
+        dependencies = new int[this.mods.size()][];
+        for (int i = 0; i < this.mods.size(); i++) {
+            BitSet modDependencies = new BitSet();
+            for (String dependency : this.mods.get(i).dependencies()) {
+                if (PLATFORM_IDS.contains(dependency)) {
+                    continue;
+                }
+                Integer provider = providers.get(dependency);
+                if (provider == null) {
+                    missingDependencies.add(dependency);
+                } else if (provider != i) {
+                    modDependencies.set(provider);
+                }
+            }
+            dependencies[i] = modDependencies.stream().toArray();
+        }
+        unitOf = new int[this.mods.size()];
+        findUnits();
+    }
+
+    /**
+     * @return The indices of mods in the unit and everything it needs. Don't modify it.
+     */
+    public BitSet closure(int unit) {
+        return closures.get(unit);
+    }
+
+    /**
+     * @param mods Indices of mods.
+     * @return The indices of the mods, and everything they need.
+     */
+    public BitSet closureOf(BitSet mods) {
+        BitSet closure = new BitSet(this.mods.size());
+        for (int mod = mods.nextSetBit(0); mod >= 0; mod = mods.nextSetBit(mod + 1)) {
+            if (!closure.get(mod)) {
+                closure.or(closures.get(unitOf[mod]));
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Tarjan's strongly connected components, without recursion so big packs don't overflow the stack.
+     * A unit is only finished after every unit it can reach, so closures can be built as units are found.
+     */
+    private void findUnits() {
+        int size = mods.size();
+        int[] index = new int[size];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int stackSize = 0;
+        int[] callStack = new int[size];
+        int[] nextEdge = new int[size];
+        int callStackSize = 0;
+        int nextIndex = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[callStackSize] = root;
+            nextEdge[callStackSize++] = 0;
+            while (callStackSize > 0) {
+                int mod = callStack[callStackSize - 1];
+                if (nextEdge[callStackSize - 1] < dependencies[mod].length) {
+                    int dependency = dependencies[mod][nextEdge[callStackSize - 1]++];
+                    if (index[dependency] == -1) {
+                        index[dependency] = lowLink[dependency] = nextIndex++;
+                        stack[stackSize++] = dependency;
+                        onStack[dependency] = true;
+                        callStack[callStackSize] = dependency;
+                        nextEdge[callStackSize++] = 0;
+                    } else if (onStack[dependency]) {
+                        lowLink[mod] = Math.min(lowLink[mod], index[dependency]);
+                    }
+                    continue;
+                }
+                callStackSize--;
+                if (lowLink[mod] == index[mod]) {
+                    int unit = members.size();
+                    BitSet unitMembers = new BitSet(size);
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        unitOf[member] = unit;
+                        unitMembers.set(member);
+                    } while (member != mod);
+                    BitSet closure = (BitSet) unitMembers.clone();
+                    for (int i = unitMembers.nextSetBit(0); i >= 0; i = unitMembers.nextSetBit(i + 1)) {
+                        for (int dependency : dependencies[i]) {
+                            if (unitOf[dependency] != unit) {
+                                closure.or(closures.get(unitOf[dependency]));
+                            }
+                        }
+                    }
+                    members.add(unitMembers);
+                    closures.add(closure);
+                }
+                if (callStackSize > 0) {
+                    int caller = callStack[callStackSize - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[mod]);
+                }
+            }
+        }
+    }
+
+    public Mod get(int index) {
+        return mods.get(index);
+    }
+
+    /**
+     * @return Dependencies that no mod provides, not counting {@link DependencyGraph#PLATFORM_IDS}.
+     */
+    public SortedSet<String> getMissingDependencies() {
+        return Collections.unmodifiableSortedSet(missingDependencies);
+    }
+
+    /**
+     * @return The index of the mod, or {@code -1} if it isn't in the graph.
+     */
+    public int indexOf(Mod mod) {
+        return indices.getOrDefault(mod, -1);
+    }
+
+    /**
+     * @return The indices of mods in the unit. Don't modify it.
+     */
+    public BitSet members(int unit) {
+        return members.get(unit);
+    }
+
+    public int size() {
+        return mods.size();
+    }
+
+    /**
+     * @return The index of the mod that provides the id, or {@code -1} if none do.
+     */
+    public int providerOf(String id) {
+        return providers.getOrDefault(id, -1);
+    }
+
+    public int unitCount() {
+        return members.size();
+    }
+
+    public int unitOf(int mod) {
+        return unitOf[mod];
+    }
+
+    /**
+     * @param mods Indices of mods.
+     * @return How many different units the mods are in.
+     */
+    public int unitsIn(BitSet mods) {
+        BitSet units = new BitSet(members.size());
+        for (int mod = mods.nextSetBit(0); mod >= 0; mod = mods.nextSetBit(mod + 1)) {
+            units.set(unitOf[mod]);
+        }
+        return units.cardinality();
+    }
+}
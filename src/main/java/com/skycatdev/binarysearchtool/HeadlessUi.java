@@ -0,0 +1,251 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a whole search without anyone there, asking a {@link TestOracle} instead of the user.
+ * Dialogs are answered with their {@link Option#headlessDefault()} option, and everything is logged. Since nobody has to
+ * be waited for, the option's callback is run before the dialog returns.
+ */
+public class HeadlessUi implements SearchUi {
+    private final @Nullable TestOracle oracle;
+    /**
+     * Made when the search handler is ready, if testing in parallel
+     */
+    private final @Nullable SandboxMaker sandboxMaker;
+    /**
+     * Runs tests one at a time, so each step doesn't start inside the last one
+     */
+    private final ExecutorService testExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "Headless search");
+        thread.setDaemon(false);
+        return thread;
+    });
+    private @Nullable SearchHandler searchHandler = null;
+    /**
+     * Every test so far, for the {@link SearchReport}
+     */
+    private final ArrayList<SearchReport.Step> steps = new ArrayList<>();
+    private final long createdNanos = System.nanoTime();
+    /**
+     * When the last answer was given, to time how long the next step took to prepare
+     */
+    private long answeredNanos = System.nanoTime();
+    private boolean writeReport = false;
+    private @Nullable Path reportFile = null;
+
+    /**
+     * Tests one set at a time, with the mods folder (or staging folder) the search handler uses.
+     */
+    public HeadlessUi(TestOracle oracle) {
+        this.oracle = oracle;
+        this.sandboxMaker = null;
+    }
+
+    /**
+     * Tests several sets at once, each in its own sandbox. Needs a staging folder.
+     */
+    public HeadlessUi(SandboxMaker sandboxMaker) {
+        this.oracle = null;
+        this.sandboxMaker = sandboxMaker;
+    }
+
+    /**
+     * Writes a {@link SearchReport} once the search is finished.
+     *
+     * @param reportFile Where to write it, or {@code null} for standard output.
+     */
+    public HeadlessUi writeReport(@Nullable Path reportFile) {
+        this.writeReport = true;
+        this.reportFile = reportFile;
+        return this;
+    }
+
+    @Override
+    public Future<Void> asyncDisplayOption(String title, String text, MessageType messageType, Option[] options) {
+        Log.info(text);
+        Option chosen = chooseDefault(title, options);
+        Log.info("Choosing " + chosen.name());
+        // Right away on this thread, so it's done before anything queued after the dialog, like starting the search
+        if (chosen.callback() != null) {
+            try {
+                chosen.callback().run();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return The only option, or else the one marked {@link Option#headlessDefault()}.
+     * @throws IllegalArgumentException If there's more than one option, and none of them are marked.
+     */
+    private static Option chooseDefault(String title, Option[] options) throws IllegalArgumentException {
+        if (options.length == 1) {
+            return options[0];
+        }
+        for (Option option : options) {
+            if (option.headlessDefault()) {
+                return option;
+            }
+        }
+        throw new IllegalArgumentException("The \"%s\" dialog doesn't say what to choose without a user".formatted(title));
+    }
+
+    @Override
+    public void failure() {
+        if (searchHandler != null) {
+            searchHandler.bisect(false);
+        }
+    }
+
+    @Override
+    public @Nullable SearchHandler getSearchHandler() {
+        return searchHandler;
+    }
+
+    @Override
+    public void initialize(SearchHandler searchHandler) {
+        this.searchHandler = searchHandler;
+        if (sandboxMaker == null) {
+            runTest(this::start);
+        } else {
+            // Parallel searches don't wait for the ui, so their tests are reported as events
+            searchHandler.addListener((event) -> {
+                if (event instanceof SearchEvent.SandboxTested tested) {
+                    steps.add(new SearchReport.Step(steps.size() + 1, tested.step(), tested.sandbox(), tested.testing(), tested.successful(), tested.stageMillis(), tested.testMillis()));
+                }
+            });
+            runTest(() -> {
+                try {
+                    searchHandler.searchInParallel(sandboxMaker.make(searchHandler.getMods()));
+                } catch (IOException e) {
+                    Log.warn("Couldn't test in the sandboxes", e);
+                    asyncDisplayOption("Test failed", "Couldn't test in the sandboxes, giving up.", MessageType.ERROR, new Option[]{new Option("OK", searchHandler::onFatalError)});
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the task on the test thread. If it throws, the search can't go on, and nobody is there to notice it
+     * waiting, so the mods are put back and the program exits with an error.
+     */
+    private void runTest(Runnable task) {
+        testExecutor.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.error("The search failed: " + e);
+                if (searchHandler != null) {
+                    asyncDisplayOption("Search failed", "Something went wrong during the search, giving up.", MessageType.ERROR, new Option[]{new Option("OK", searchHandler::onFatalError)});
+                } else {
+                    System.exit(1);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onBisectFinished() {
+        assert oracle != null : "Parallel searches don't wait for the ui";
+        long prepareNanos = System.nanoTime() - answeredNanos;
+        int testing = searchHandler == null ? 0 : searchHandler.getTestingMods().size();
+        runTest(() -> {
+            boolean successful;
+            long testStartNanos = System.nanoTime();
+            try {
+                successful = oracle.test();
+            } catch (IOException e) {
+                Log.warn("Couldn't run the test", e);
+                asyncDisplayOption("Test failed", "Couldn't run the test, giving up.", MessageType.ERROR, new Option[]{new Option("OK", () -> {
+                    if (searchHandler != null) {
+                        searchHandler.onFatalError();
+                    }
+                })});
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            answeredNanos = System.nanoTime();
+            steps.add(new SearchReport.Step(steps.size() + 1, steps.size() + 1, null, testing, successful, prepareNanos / 1_000_000, (answeredNanos - testStartNanos) / 1_000_000));
+            if (successful) {
+                success();
+            } else {
+                failure();
+            }
+        });
+    }
+
+    @Override
+    public void onFinished(ArrayList<Mod> problematicMods) {
+        Log.info("Finished! The problem comes from:");
+        for (Mod problematicMod : problematicMods) {
+            Log.info("%s (%s)".formatted(problematicMod.name(), problematicMod.filename()));
+        }
+        if (writeReport) {
+            try {
+                new SearchReport(problematicMods, List.copyOf(steps), (System.nanoTime() - createdNanos) / 1_000_000).write(reportFile);
+            } catch (IOException e) {
+                Log.warn("Couldn't write the report", e);
+                System.exit(1);
+            }
+        }
+        testExecutor.shutdown();
+    }
+
+    @Override
+    public void sendInstructions(String instructions) {
+        Log.info(instructions);
+    }
+
+    @Override
+    public void sendNextStepInstructions() {
+        Log.info("Next step is ready, testing");
+    }
+
+    @Override
+    public void start() {
+        if (searchHandler != null) {
+            searchHandler.bisect(true);
+        }
+    }
+
+    @Override
+    public void success() {
+        if (searchHandler != null) {
+            searchHandler.bisect(true);
+        }
+    }
+
+    @Override
+    public void updateLists(ArrayList<Mod> candidateMods, ArrayList<Mod> workingMods) {
+    }
+
+    @Override
+    public void updateProgress(int iterations, int maxIterations) {
+        Log.info("Step %d of about %d".formatted(iterations, maxIterations));
+    }
+
+    @FunctionalInterface
+    public interface SandboxMaker {
+        /**
+         * @param mods The mods that will be linked into the sandboxes.
+         * @return The sandboxes to test in. See {@link Sandbox#createAll}.
+         */
+        List<Sandbox> make(List<Mod> mods) throws IOException;
+    }
+}
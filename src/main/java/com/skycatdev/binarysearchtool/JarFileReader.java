@@ -0,0 +1,36 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Reads a jar with {@link JarFile}.
+ */
+public class JarFileReader implements ModJarReader {
+    private final JarFile jarFile;
+
+    public JarFileReader(File jar) throws IOException {
+        this.jarFile = new JarFile(jar);
+    }
+
+    @Override
+    public void close() throws IOException {
+        jarFile.close();
+    }
+
+    @Override
+    public @Nullable InputStream getEntry(String name) throws IOException {
+        JarEntry entry = jarFile.getJarEntry(name);
+        return entry == null ? null : jarFile.getInputStream(entry);
+    }
+
+    @Override
+    public String getName() {
+        return jarFile.getName();
+    }
+}
@@ -0,0 +1,183 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Where everything logs to. Messages below every appender's level are thrown away before they're even made, so use
+ * the {@link Supplier} versions for messages that take work to build, like ones in loops over every mod.
+ * By default, {@link Level#INFO} and up go to standard output, without blocking the thread that logged.
+ */
+public final class Log {
+    private static final CopyOnWriteArrayList<Registered> APPENDERS = new CopyOnWriteArrayList<>();
+    /**
+     * The lowest level any appender wants. Checked before anything else, so disabled messages cost one comparison.
+     */
+    private static volatile Level lowestLevel = Level.OFF;
+    private static @Nullable Registered console = null;
+
+    static {
+        setConsole(System.out, Level.INFO);
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush, "Log flush"));
+    }
+
+    private Log() {
+    }
+
+    /**
+     * @param appender Where to send messages. Wrap it in an {@link AsyncAppender} if writing can block.
+     * @param level    The lowest level to send it.
+     */
+    public static void addAppender(Appender appender, Level level) {
+        APPENDERS.add(new Registered(appender, level));
+        updateLowestLevel();
+    }
+
+    /**
+     * Replaces the console appender, flushing the old one first.
+     */
+    public static synchronized void setConsole(PrintStream stream, Level level) {
+        Registered old = console;
+        console = new Registered(new AsyncAppender(new StreamAppender(stream, false), AsyncAppender.DEFAULT_CAPACITY), level);
+        APPENDERS.add(console);
+        if (old != null) {
+            APPENDERS.remove(old);
+            old.appender().close();
+        }
+        updateLowestLevel();
+    }
+
+    /**
+     * Changes the level of the console appender.
+     */
+    public static synchronized void setConsoleLevel(Level level) {
+        Registered old = console;
+        if (old != null) {
+            console = new Registered(old.appender(), level);
+            APPENDERS.set(APPENDERS.indexOf(old), console);
+            updateLowestLevel();
+        }
+    }
+
+    private static void updateLowestLevel() {
+        Level lowest = Level.OFF;
+        for (Registered registered : APPENDERS) {
+            if (registered.level().compareTo(lowest) < 0) {
+                lowest = registered.level();
+            }
+        }
+        lowestLevel = lowest;
+    }
+
+    /**
+     * Waits for every appender to write what it has.
+     */
+    public static void flush() {
+        for (Registered registered : APPENDERS) {
+            registered.appender().flush();
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(lowestLevel) >= 0 && level != Level.OFF;
+    }
+
+    public static void log(Level level, String message) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), level, Thread.currentThread().getName(), message);
+        for (Registered registered : APPENDERS) {
+            if (level.compareTo(registered.level()) >= 0) {
+                registered.appender().append(entry);
+            }
+        }
+    }
+
+    public static void log(Level level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            log(level, message.get());
+        }
+    }
+
+    public static void trace(String message) {
+        log(Level.TRACE, message);
+    }
+
+    public static void trace(Supplier<String> message) {
+        log(Level.TRACE, message);
+    }
+
+    public static void debug(String message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void debug(Supplier<String> message) {
+        log(Level.DEBUG, message);
+    }
+
+    public static void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    public static void warn(String message) {
+        log(Level.WARN, message);
+    }
+
+    /**
+     * Logs the message, followed by what went wrong.
+     */
+    public static void warn(String message, Throwable cause) {
+        log(Level.WARN, message + ": " + cause.getMessage());
+    }
+
+    public static void error(String message) {
+        log(Level.ERROR, message);
+    }
+
+    public enum Level {
+        TRACE, DEBUG, INFO, WARN, ERROR,
+        /**
+         * Only for appender levels, to send nothing
+         */
+        OFF;
+
+        /**
+         * @throws IllegalArgumentException If there's no level by that name.
+         */
+        public static Level parse(String name) throws IllegalArgumentException {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Writes log entries somewhere. Only called by one thread at a time, unless it says otherwise.
+     */
+    public interface Appender {
+        void append(Entry entry);
+
+        /**
+         * Writes everything that's been appended.
+         */
+        default void flush() {
+        }
+
+        default void close() {
+            flush();
+        }
+    }
+
+    /**
+     * @param time    When it was logged, in milliseconds since the epoch.
+     * @param thread  The name of the thread that logged it.
+     */
+    public record Entry(long time, Level level, String thread, String message) {
+    }
+
+    private record Registered(Appender appender, Level level) {
+    }
+}
@@ -0,0 +1,231 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a game folder while a test runs, and hands over every new line of the log and of any new crash report.
+ * A {@link WatchService} wakes it up when something changes, and files are read with positional reads from where
+ * it left off, so nothing is read twice. It also checks every so often on its own, since some filesystems (like
+ * network ones) don't send events.
+ */
+public class LogWatcher implements Closeable {
+    private static final long POLL_MILLIS = 250;
+    private final Path crashReportsFolder;
+    private final LineConsumer consumer;
+    private final WatchService watchService;
+    private final FileTail logTail;
+    /**
+     * Crash report -> its tail
+     */
+    private final HashMap<Path, FileTail> crashReportTails = new HashMap<>();
+    /**
+     * Crash reports from before we started, which aren't about this test
+     */
+    private final HashSet<Path> oldCrashReports = new HashSet<>();
+    private final HashSet<Path> watchedFolders = new HashSet<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Starts watching. Only lines added after this are handed over.
+     *
+     * @param logFile            The log to watch, usually {@code logs/latest.log}. Doesn't have to exist yet.
+     * @param crashReportsFolder The folder crash reports are saved in. Doesn't have to exist yet.
+     * @param consumer           Gets each new line. Called from the watching thread.
+     */
+    public LogWatcher(Path logFile, Path crashReportsFolder, LineConsumer consumer) throws IOException {
+        this.crashReportsFolder = crashReportsFolder;
+        this.consumer = consumer;
+        this.watchService = logFile.getFileSystem().newWatchService();
+        this.logTail = new FileTail(logFile, true);
+        if (Files.isDirectory(crashReportsFolder)) {
+            try (DirectoryStream<Path> crashReports = Files.newDirectoryStream(crashReportsFolder)) {
+                crashReports.forEach(oldCrashReports::add);
+            }
+        }
+        watch(logFile.getParent());
+        watch(crashReportsFolder);
+        thread = new Thread(this::run, "Log watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Watches the logs and crash reports of a game folder, like an instance or a server folder.
+     */
+    public static LogWatcher forGameFolder(Path gameFolder, LineConsumer consumer) throws IOException {
+        return new LogWatcher(gameFolder.resolve("logs").resolve("latest.log"), gameFolder.resolve("crash-reports"), consumer);
+    }
+
+    /**
+     * Something that tells files apart, even if one replaces another with the same name.
+     */
+    private static @Nullable Object identityOf(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads anything new right now, instead of waiting to be woken up. Safe to call from any thread.
+     */
+    public synchronized void catchUp() {
+        logTail.read((line) -> consumer.accept(line, false));
+        if (Files.isDirectory(crashReportsFolder)) {
+            try (DirectoryStream<Path> crashReports = Files.newDirectoryStream(crashReportsFolder)) {
+                for (Path crashReport : crashReports) {
+                    if (!oldCrashReports.contains(crashReport)) {
+                        crashReportTails.computeIfAbsent(crashReport, (file) -> new FileTail(file, false));
+                    }
+                }
+            } catch (IOException e) {
+                Log.warn("Couldn't look for crash reports");
+            }
+        }
+        crashReportTails.values().forEach((tail) -> tail.read((line) -> consumer.accept(line, true)));
+    }
+
+    /**
+     * Stops watching, after reading anything that's left.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catchUp();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                watch(logTail.file.getParent());
+                watch(crashReportsFolder);
+                // Woken up early by any change, but the events themselves don't matter
+                WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                catchUp();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Starts watching the folder, if it exists and isn't watched yet.
+     */
+    private void watch(@Nullable Path folder) {
+        if (folder == null || watchedFolders.contains(folder) || !Files.isDirectory(folder)) {
+            return;
+        }
+        try {
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedFolders.add(folder);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // We still check on our own
+        }
+    }
+
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**
+         * @param line        A line, without the line ending.
+         * @param crashReport If it's from a crash report, instead of the log.
+         */
+        void accept(String line, boolean crashReport);
+    }
+
+    /**
+     * Reads lines added to a file. If the file is replaced (like the game starting a new log), the new one is read
+     * from the beginning.
+     */
+    private static class FileTail {
+        private final Path file;
+        private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private @Nullable Object identity;
+        private long position;
+
+        /**
+         * @param skipExisting If what's in the file now should be skipped.
+         */
+        private FileTail(Path file, boolean skipExisting) {
+            this.file = file;
+            this.identity = identityOf(file);
+            long size = 0;
+            if (skipExisting && identity != null) {
+                try {
+                    size = Files.size(file);
+                } catch (IOException ignored) {
+
+                }
+            }
+            this.position = size;
+        }
+
+        private void read(Consumer<String> lines) {
+            @Nullable Object currentIdentity = identityOf(file);
+            if (currentIdentity == null) {
+                return;
+            }
+            if (!currentIdentity.equals(identity)) {
+                // A new file
+                identity = currentIdentity;
+                position = 0;
+                partialLine.reset();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < position) {
+                    // Started over
+                    position = 0;
+                    partialLine.reset();
+                }
+                int read;
+                while ((read = channel.read(buffer.clear(), position)) > 0) {
+                    position += read;
+                    for (int i = 0; i < read; i++) {
+                        byte b = buffer.get(i);
+                        if (b == '\n') {
+                            lines.accept(partialLine.toString(StandardCharsets.UTF_8).stripTrailing());
+                            partialLine.reset();
+                        } else {
+                            partialLine.write(b);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Probably being rotated, try again next time
+            }
+        }
+    }
+}
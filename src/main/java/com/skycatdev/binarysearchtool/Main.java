@@ -2,48 +2,153 @@ package com.skycatdev.binarysearchtool;
 
 import javax.swing.*;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Main {
+    private static final Pattern HOST_AND_PORT = Pattern.compile("([^/\\\\:]+):(\\d{1,5})");
+    /**
+     * Written next to the mods folder with everything from {@link Log.Level#DEBUG} up, to attach to bug reports
+     */
+    public static final String LOG_FILE_NAME = "binarysearchtool.log";
+
     private static boolean isValidFolder(String input) {
         File inputFile = Path.of(input).toFile();
         return inputFile.exists() && inputFile.isDirectory();
     }
 
-    public static void log(String message) {
-        System.out.println(message);
-    }
-
-    public static void main(String[] args) { // args: path (--gui) // Warning: The flag parsing is not actually flag parsing
+    public static void main(String[] args) { // args: [path] [options] [-- command...], see Arguments#USAGE
         if (args.length > 0) {
-            if (isValidFolder(args[0])) {
-                if (args.length > 1) {
-                    startUi(args[1].equals("--gui"), Path.of(args[0]));
-                    return;
+            if (args[0].equals("--help")) {
+                System.out.println(Arguments.USAGE);
+                return;
+            }
+            Arguments arguments;
+            try {
+                arguments = Arguments.parse(args);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(Arguments.USAGE);
+                System.exit(2);
+                return;
+            }
+            // Batch mode keeps standard output for the result
+            Log.setConsole(arguments.batch() ? System.err : System.out, arguments.logLevel());
+            if (arguments.modsPath() == null) {
+                if (arguments.gui()) {
+                    askForFolder(arguments.options());
+                } else {
+                    System.out.println("Please give the path to your mods folder");
+                    System.out.println(Arguments.USAGE);
+                }
+            } else if (isValidFolder(arguments.modsPath().toString())) {
+                if (arguments.events() != null) {
+                    try {
+                        streamEvents(arguments.events(), arguments.modsPath(), arguments.options());
+                    } catch (IOException e) {
+                        System.err.println("Couldn't open " + arguments.events() + " for events: " + e.getMessage());
+                        System.exit(2);
+                        return;
+                    }
+                }
+                if (arguments.batch()) {
+                    startBatch(arguments);
+                } else {
+                    startUi(arguments.gui(), arguments.modsPath(), arguments.options());
                 }
-                startUi(false, Path.of(args[0]));
             } else {
                 System.out.println("The first argument was not a valid folder");
             }
         } else {
-            SwingUtilities.invokeLater(() -> {
-                String input = JOptionPane.showInputDialog(null, "Welcome! To get started, input the full path to your mods folder below.", "");
-                if (isValidFolder(input)) {
-                    startUi(true, Path.of(input));
-                } else {
-                    JOptionPane.showMessageDialog(null, "That's not a valid folder. Please try again.");
-                    main(args);
+            askForFolder(new SearchOptions());
+        }
+    }
+
+    private static void askForFolder(SearchOptions options) {
+        SwingUtilities.invokeLater(() -> {
+            String input = JOptionPane.showInputDialog(null, "Welcome! To get started, input the full path to your mods folder below.", "");
+            if (isValidFolder(input)) {
+                if (options.stagingFolder() != null) {
+                    try {
+                        StagingSwitcher.checkFolders(Path.of(input), options.stagingFolder());
+                    } catch (IllegalArgumentException e) {
+                        JOptionPane.showMessageDialog(null, e.getMessage() + ". Please choose another folder, or another staging folder.");
+                        askForFolder(options);
+                        return;
+                    }
                 }
-            });
+                startUi(true, Path.of(input), options);
+            } else {
+                JOptionPane.showMessageDialog(null, "That's not a valid folder. Please try again.");
+                askForFolder(options);
+            }
+        });
+    }
+
+    /**
+     * Sends every event of the search to a file or tcp listener, labelled with the mods folder.
+     *
+     * @param target A file, or {@code host:port}.
+     */
+    private static void streamEvents(String target, Path modsPath, SearchOptions options) throws IOException {
+        String label = modsPath.toAbsolutePath().toString();
+        Matcher address = HOST_AND_PORT.matcher(target);
+        NdjsonSink sink = address.matches()
+                ? NdjsonSink.toSocket(address.group(1), Integer.parseInt(address.group(2)), label)
+                : NdjsonSink.toFile(Path.of(target), label);
+        options.listener(sink);
+        // Exiting (even with System.exit) still writes what's queued
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::close));
+    }
+
+    /**
+     * Runs the whole search with the test command, then writes the result.
+     */
+    private static void startBatch(Arguments arguments) {
+        Path modsPath = arguments.modsPath();
+        assert modsPath != null;
+        logToFile(modsPath);
+        HeadlessUi ui;
+        if (arguments.sandboxes() > 0) {
+            Path sandboxFolder = arguments.sandboxFolder();
+            assert sandboxFolder != null;
+            // Each sandbox is a copy of the instance, so its tests run there
+            ui = new HeadlessUi((mods) -> Sandbox.createAll(modsPath, sandboxFolder, arguments.sandboxes(), (folder) -> makeOracle(arguments, folder), mods));
+        } else {
+            ui = new HeadlessUi(makeOracle(arguments, arguments.directory() != null ? arguments.directory() : modsPath.toAbsolutePath().getParent()));
+        }
+        try {
+            SearchHandler.createWithUi(modsPath, ui.writeReport(arguments.output()), arguments.options());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("The directory should've been validated by now.", e);
+        }
+    }
+
+    private static CommandOracle makeOracle(Arguments arguments, Path directory) {
+        CommandOracle oracle = arguments.server() ? CommandOracle.forServer(arguments.command(), directory) : new CommandOracle(arguments.command(), directory);
+        return oracle.timeout(arguments.timeout());
+    }
+
+    /**
+     * Also logs to {@link Main#LOG_FILE_NAME}, replacing the last one.
+     */
+    private static void logToFile(Path modsPath) {
+        try {
+            Log.addAppender(new AsyncAppender(StreamAppender.toFile(modsPath.resolveSibling(LOG_FILE_NAME)), AsyncAppender.DEFAULT_CAPACITY), Log.Level.DEBUG);
+        } catch (IOException e) {
+            Log.warn("Couldn't make a log file", e);
         }
     }
 
-    private static void startUi(boolean useGui, Path modsPath) {
+    private static void startUi(boolean useGui, Path modsPath, SearchOptions options) {
+        logToFile(modsPath);
         if (useGui) {
             SwingUtilities.invokeLater(() -> {
                 try {
                     SearchGui gui = new SearchGui();
-                    SearchHandler.createWithUi(modsPath, gui);
+                    SearchHandler.createWithUi(modsPath, gui, options);
                     gui.setVisible(true);
                 } catch (IllegalArgumentException e) {
                     throw new RuntimeException("The directory should've been validated by now.", e);
@@ -51,7 +156,7 @@ public class Main {
             });
         } else {
             try {
-                SearchHandler.createWithUi(modsPath, new CliUi());
+                SearchHandler.createWithUi(modsPath, new CliUi(), options);
             } catch (IllegalArgumentException e) {
                 throw new RuntimeException("The directory should've been validated by now.", e);
             }
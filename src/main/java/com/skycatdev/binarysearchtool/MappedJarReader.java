@@ -0,0 +1,182 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a jar by memory-mapping it and looking through the zip central directory ourselves.
+ * Unlike {@link java.util.jar.JarFile}, this doesn't look at the manifest or signatures, and it only inflates the
+ * entries that are asked for. Only {@code fabric.mod.json} and {@code .jar} entries can be read.
+ */
+public class MappedJarReader implements ModJarReader {
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final byte[] FMJ_NAME = "fabric.mod.json".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JAR_SUFFIX = ".jar".getBytes(StandardCharsets.UTF_8);
+    private final String name;
+    private final ByteBuffer buffer;
+    /**
+     * Entry name -> where its central directory header starts
+     */
+    private final HashMap<String, Integer> entries = new HashMap<>();
+
+    /**
+     * @throws UnsupportedZipException If the jar uses zip features we don't read, like zip64.
+     */
+    public MappedJarReader(File jar) throws IOException {
+        this.name = jar.getPath();
+        try (FileChannel channel = FileChannel.open(jar.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new UnsupportedZipException("Jar is too big to map");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        readCentralDirectory();
+    }
+
+    private static boolean endsWith(ByteBuffer buffer, int start, int length, byte[] suffix) {
+        if (length < suffix.length) {
+            return false;
+        }
+        int offset = start + length - suffix.length;
+        for (int i = 0; i < suffix.length; i++) {
+            if (buffer.get(offset + i) != suffix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to do, the mapping is released when the buffer is garbage collected
+    }
+
+    private int findEndOfCentralDirectory() throws IOException {
+        // The end record is at the very end, unless there's a comment after it (at most 65535 bytes)
+        int lowest = Math.max(0, buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF);
+        for (int position = buffer.limit() - END_OF_CENTRAL_DIRECTORY_SIZE; position >= lowest; position--) {
+            if (buffer.getInt(position) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                return position;
+            }
+        }
+        throw new IOException("Couldn't find the end of the central directory of " + name + ". Is it a jar?");
+    }
+
+    @Override
+    public @Nullable InputStream getEntry(String entryName) throws IOException {
+        Integer header = entries.get(entryName);
+        if (header == null) {
+            return null;
+        }
+        int flags = Short.toUnsignedInt(buffer.getShort(header + 8));
+        if ((flags & 1) != 0) {
+            throw new IOException("Entry " + entryName + " of " + name + " is encrypted");
+        }
+        int method = Short.toUnsignedInt(buffer.getShort(header + 10));
+        long compressedSize = Integer.toUnsignedLong(buffer.getInt(header + 20));
+        long uncompressedSize = Integer.toUnsignedLong(buffer.getInt(header + 24));
+        long localHeader = Integer.toUnsignedLong(buffer.getInt(header + 42));
+        if (localHeader + LOCAL_HEADER_SIZE > buffer.limit() || buffer.getInt((int) localHeader) != LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Bad local header for " + entryName + " in " + name);
+        }
+        // The local header can have a different extra field than the central one, so use its own lengths
+        long dataStart = localHeader + LOCAL_HEADER_SIZE
+                         + Short.toUnsignedInt(buffer.getShort((int) localHeader + 26))
+                         + Short.toUnsignedInt(buffer.getShort((int) localHeader + 28));
+        if (dataStart + compressedSize > buffer.limit() || uncompressedSize > Integer.MAX_VALUE) {
+            throw new IOException("Entry " + entryName + " of " + name + " doesn't fit in the jar");
+        }
+        ByteBuffer data = buffer.slice((int) dataStart, (int) compressedSize);
+        byte[] contents = new byte[(int) uncompressedSize];
+        switch (method) {
+            case STORED -> data.get(contents);
+            case DEFLATED -> {
+                Inflater inflater = new Inflater(true);
+                try {
+                    inflater.setInput(data);
+                    int inflated = 0;
+                    while (inflated < contents.length && !inflater.finished()) {
+                        int read = inflater.inflate(contents, inflated, contents.length - inflated);
+                        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        inflated += read;
+                    }
+                    if (inflated != contents.length) {
+                        throw new IOException("Entry " + entryName + " of " + name + " is truncated");
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Entry " + entryName + " of " + name + " is corrupt", e);
+                } finally {
+                    inflater.end();
+                }
+            }
+            default -> throw new IOException("Entry " + entryName + " of " + name + " uses unknown compression method " + method);
+        }
+        return new ByteArrayInputStream(contents);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        int end = findEndOfCentralDirectory();
+        int entryCount = Short.toUnsignedInt(buffer.getShort(end + 10));
+        long directoryOffset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+        if (entryCount == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+            throw new UnsupportedZipException("Zip64 isn't supported");
+        }
+        int position = (int) directoryOffset;
+        for (int i = 0; i < entryCount; i++) {
+            if (position + CENTRAL_DIRECTORY_HEADER_SIZE > buffer.limit() || buffer.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+                throw new IOException("Bad central directory in " + name);
+            }
+            if (buffer.getInt(position + 20) == 0xFFFFFFFF || buffer.getInt(position + 24) == 0xFFFFFFFF || buffer.getInt(position + 42) == 0xFFFFFFFF) {
+                throw new UnsupportedZipException("Zip64 isn't supported");
+            }
+            int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+            int nameStart = position + CENTRAL_DIRECTORY_HEADER_SIZE;
+            // Only decode the names we could be asked for
+            if ((nameLength == FMJ_NAME.length && endsWith(buffer, nameStart, nameLength, FMJ_NAME)) || endsWith(buffer, nameStart, nameLength, JAR_SUFFIX)) {
+                byte[] nameBytes = new byte[nameLength];
+                buffer.get(nameStart, nameBytes);
+                entries.putIfAbsent(new String(nameBytes, StandardCharsets.UTF_8), position);
+            }
+            position = nameStart + nameLength + extraLength + commentLength;
+        }
+    }
+
+    /**
+     * The jar might be fine, but we don't know how to read it. Use another reader.
+     */
+    public static class UnsupportedZipException extends IOException {
+        public UnsupportedZipException(String message) {
+            super(message);
+        }
+    }
+}
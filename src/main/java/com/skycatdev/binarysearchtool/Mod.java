@@ -9,10 +9,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 /**
@@ -31,7 +35,18 @@ public record Mod(String name, String mainId, Set<String> ids, Set<String> depen
      * Main ID -> func(oldDeps, newDeps)
      */
     public static final HashMap<String, Function<Set<String>, Set<String>>> DEPENDENCY_OVERRIDES = new HashMap<>();
+    /**
+     * Main ID -> The override json the function in {@link Mod#DEPENDENCY_OVERRIDES} was made from
+     */
+    public static final HashMap<String, String> DEPENDENCY_OVERRIDE_SOURCES = new HashMap<>();
     public static final Set<String> IGNORED_DEPENDENCIES = new HashSet<>();
+    /**
+     * Mods with the most dependencies first, then by id, name, and file name
+     */
+    public static final Comparator<Mod> COMPARATOR = Comparator.<Mod>comparingInt((mod) -> -mod.dependencies().size())
+            .thenComparing(Mod::mainId, String::compareTo)
+            .thenComparing(Mod::name, String::compareTo)
+            .thenComparing(Mod::filename, String::compareTo);
 
     static {
         ID_OVERRIDES.put("owo-sentinel", Set.of("owo-sentinel"));
@@ -54,6 +69,7 @@ public record Mod(String name, String mainId, Set<String> ids, Set<String> depen
     public static void loadDependencyOverrides(File overrideFile) throws JsonIOException, JsonSyntaxException, IOException {
         if (overrideFile.exists()) {
             DEPENDENCY_OVERRIDES.clear();
+            DEPENDENCY_OVERRIDE_SOURCES.clear();
             try (FileReader fileReader = new FileReader(overrideFile)) {
                 JsonObject depOverrides = JsonParser.parseReader(fileReader).getAsJsonObject();
                 if (depOverrides.getAsJsonPrimitive("version").getAsInt() != 1) {
@@ -62,6 +78,7 @@ public record Mod(String name, String mainId, Set<String> ids, Set<String> depen
                 JsonObject overrides = depOverrides.getAsJsonObject("overrides");
                 for (String modId : overrides.keySet()) {
                     JsonObject override = overrides.get(modId).getAsJsonObject();
+                    DEPENDENCY_OVERRIDE_SOURCES.put(modId, override.toString());
                     if (override.has("depends")) {
                         JsonObject depsJson = override.getAsJsonObject("depends");
                         Set<String> newDeps = new HashSet<>(depsJson.keySet());
@@ -91,6 +108,31 @@ public record Mod(String name, String mainId, Set<String> ids, Set<String> depen
         }
     }
 
+    /**
+     * Describes every override that could have changed a mod with these ids. If this changes, the mod has to be parsed
+     * again to be correct.
+     *
+     * @param mainId The main id of the mod.
+     * @param ids    All ids of the mod, including jij'd ones.
+     */
+    public static String overridesFingerprint(String mainId, Set<String> ids) {
+        TreeSet<String> allIds = new TreeSet<>(ids);
+        allIds.add(mainId);
+        StringBuilder fingerprint = new StringBuilder();
+        for (String id : allIds) {
+            Set<String> idOverride = ID_OVERRIDES.get(id);
+            if (idOverride != null) {
+                fingerprint.append(id).append('=').append(new TreeSet<>(idOverride)).append(';');
+            }
+            String dependencyOverride = DEPENDENCY_OVERRIDE_SOURCES.get(id);
+            if (dependencyOverride != null) {
+                fingerprint.append(id).append(':').append(dependencyOverride).append(';');
+            }
+        }
+        fingerprint.append("ignored=").append(new TreeSet<>(IGNORED_DEPENDENCIES));
+        return fingerprint.toString();
+    }
+
     @Override
     public boolean equals(Object obj) {
         //noinspection DeconstructionCanBeUsed
@@ -104,20 +146,45 @@ public record Mod(String name, String mainId, Set<String> ids, Set<String> depen
         return false;
     }
 
+    /**
+     * @return The name of the enabled jar, without the folder.
+     */
+    public String jarName() {
+        return Path.of(filename).getFileName() + ".jar";
+    }
+
+    /**
+     * Renames the file in one step, so it's never half-moved.
+     */
+    private static boolean tryMove(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     public boolean tryDisable(Path modFolder) {
-        File disabledMod = modFolder.resolve(filename + ".jar.disabled").toFile();
-        if (disabledMod.exists()) {
+        Path disabledMod = modFolder.resolve(filename + ".jar.disabled");
+        Path enabledMod = modFolder.resolve(filename + ".jar");
+        if (Files.exists(disabledMod)) {
+            if (Files.exists(enabledMod)) {
+                // Can't rename over the other one, and the enabled one would still be loaded
+                Log.warn("Both %1$s and %1$s.disabled exist, one of them has to be removed".formatted(jarName()));
+                return false;
+            }
             return true; // Already disabled
         }
-        return modFolder.resolve(filename + ".jar").toFile().renameTo(disabledMod);
+        return tryMove(enabledMod, disabledMod);
     }
 
     public boolean tryEnable(Path modFolder) {
-        File enabledMod = modFolder.resolve(filename + ".jar").toFile();
-        if (enabledMod.exists()) {
+        Path enabledMod = modFolder.resolve(filename + ".jar");
+        if (Files.exists(enabledMod)) {
             return true; // Already enabled
         }
-        return modFolder.resolve(filename + ".jar.disabled").toFile().renameTo(enabledMod);
+        return tryMove(modFolder.resolve(filename + ".jar.disabled"), enabledMod);
     }
 }
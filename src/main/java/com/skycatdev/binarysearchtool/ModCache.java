@@ -0,0 +1,238 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what was in each jar between runs, so discovery only has to open jars that changed.
+ * Entries are keyed by jar file name, and are only used if the size and last-modified time (and optionally the hash)
+ * still match, and the overrides that apply to the mod haven't changed.
+ */
+public class ModCache {
+    /**
+     * Bump this when the file format or the way mods are parsed changes. Caches with another version are thrown away.
+     */
+    public static final int VERSION = 1;
+    public static final String FILE_NAME = "binarysearchtool_cache.json";
+    private final Path cacheFile;
+    private final boolean useHashes;
+    /**
+     * File name -> entry, as loaded from disk
+     */
+    private final Map<String, Entry> loaded;
+    /**
+     * File name -> entry, for every jar we've seen this run. This is what gets saved, so removed jars are dropped.
+     */
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private volatile boolean dirty = false;
+
+    private ModCache(Path cacheFile, boolean useHashes, Map<String, Entry> loaded) {
+        this.cacheFile = cacheFile;
+        this.useHashes = useHashes;
+        this.loaded = loaded;
+        if (loaded.isEmpty()) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Loads the cache, or makes an empty one if it doesn't exist, is from another version, or can't be read.
+     *
+     * @param cacheFile The file the cache is stored in.
+     * @param useHashes If the content hash of jars should be checked.
+     */
+    public static ModCache load(Path cacheFile, boolean useHashes) {
+        Map<String, Entry> loaded = new ConcurrentHashMap<>();
+        if (Files.exists(cacheFile)) {
+            try (Reader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+                JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                if (json.get("version").getAsInt() == VERSION) {
+                    JsonObject mods = json.getAsJsonObject("mods");
+                    for (String jarName : mods.keySet()) {
+                        loaded.put(jarName, Entry.fromJson(mods.getAsJsonObject(jarName)));
+                    }
+                } else {
+                    Log.info("Mod cache is from another version, ignoring it");
+                }
+            } catch (IOException | JsonParseException | IllegalStateException | NullPointerException e) {
+                Log.warn("Could not read mod cache, ignoring it", e);
+                loaded.clear();
+            }
+        }
+        return new ModCache(cacheFile, useHashes, loaded);
+    }
+
+    private static String hash(File jar) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 should always be available", e);
+        }
+        try (InputStream inputStream = new FileInputStream(jar)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String stripJarExtension(File jar) {
+        String path = jar.getPath();
+        return path.substring(0, path.lastIndexOf(".jar"));
+    }
+
+    /**
+     * Gets the mod in a jar from the cache, or parses it if the cache is out of date. Safe to call from multiple threads.
+     *
+     * @param jar    The jar to get the mod of.
+     * @param parser Used when the cache can't be.
+     * @return The mod in the jar, or {@code null} if it isn't a mod.
+     */
+    public @Nullable Mod getOrParse(File jar, Parser parser) throws IOException {
+        long size = jar.length();
+        long modified = jar.lastModified();
+        Entry entry = loaded.get(jar.getName());
+        if (entry != null && entry.size == size && entry.overridesUpToDate()) {
+            if (entry.modified == modified) {
+                current.put(jar.getName(), entry);
+                return entry.toMod(jar);
+            }
+            if (useHashes && entry.hash != null && entry.hash.equals(hash(jar))) {
+                // Touched, but not changed
+                Entry touched = new Entry(size, modified, entry.hash, entry.overrides, entry.mod);
+                current.put(jar.getName(), touched);
+                dirty = true;
+                return touched.toMod(jar);
+            }
+        }
+        Log.debug(() -> "Cache miss for " + jar.getName());
+        Mod mod = parser.parse(jar);
+        current.put(jar.getName(), new Entry(size, modified, useHashes ? hash(jar) : null, mod == null ? "" : Mod.overridesFingerprint(mod.mainId(), mod.ids()), mod));
+        dirty = true;
+        return mod;
+    }
+
+    /**
+     * Writes every jar seen since loading to disk, if anything changed.
+     */
+    public void save() throws IOException {
+        if (!dirty && current.keySet().equals(loaded.keySet())) {
+            return;
+        }
+        JsonObject mods = new JsonObject();
+        current.keySet().stream().sorted().forEach((jarName) -> mods.add(jarName, current.get(jarName).toJson()));
+        JsonObject json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.add("mods", mods);
+
+        Path tempFile = cacheFile.resolveSibling(FILE_NAME + ".tmp");
+        Files.writeString(tempFile, json.toString(), StandardCharsets.UTF_8);
+        try {
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    @FunctionalInterface
+    public interface Parser {
+        /**
+         * @return The mod in the jar, or {@code null} if it isn't a mod.
+         */
+        @Nullable Mod parse(File jar) throws IOException;
+    }
+
+    /**
+     * @param size      The size of the jar in bytes.
+     * @param modified  The last-modified time of the jar.
+     * @param hash      The SHA-256 of the jar, if we were hashing.
+     * @param overrides {@link Mod#overridesFingerprint(String, Set)} when the mod was parsed.
+     * @param mod       The mod in the jar, or {@code null} if it isn't a mod. The filename is not used.
+     */
+    private record Entry(long size, long modified, @Nullable String hash, String overrides, @Nullable Mod mod) {
+        private static Entry fromJson(JsonObject json) {
+            JsonElement hashElement = json.get("hash");
+            Mod mod = null;
+            JsonObject modJson = json.getAsJsonObject("mod");
+            if (modJson != null) {
+                mod = new Mod(modJson.get("name").getAsString(),
+                        modJson.get("mainId").getAsString(),
+                        readStrings(modJson.getAsJsonArray("ids")),
+                        readStrings(modJson.getAsJsonArray("dependencies")),
+                        "");
+            }
+            return new Entry(json.get("size").getAsLong(),
+                    json.get("modified").getAsLong(),
+                    hashElement == null ? null : hashElement.getAsString(),
+                    json.get("overrides").getAsString(),
+                    mod);
+        }
+
+        private static Set<String> readStrings(JsonArray array) {
+            Set<String> strings = new HashSet<>();
+            array.forEach((element) -> strings.add(element.getAsString()));
+            return strings;
+        }
+
+        private static JsonArray writeStrings(Set<String> strings) {
+            JsonArray array = new JsonArray();
+            strings.stream().sorted().forEach(array::add);
+            return array;
+        }
+
+        private boolean overridesUpToDate() {
+            return mod == null || overrides.equals(Mod.overridesFingerprint(mod.mainId(), mod.ids()));
+        }
+
+        private JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("size", size);
+            json.addProperty("modified", modified);
+            if (hash != null) {
+                json.addProperty("hash", hash);
+            }
+            json.addProperty("overrides", overrides);
+            if (mod != null) {
+                JsonObject modJson = new JsonObject();
+                modJson.addProperty("name", mod.name());
+                modJson.addProperty("mainId", mod.mainId());
+                modJson.add("ids", writeStrings(mod.ids()));
+                modJson.add("dependencies", writeStrings(mod.dependencies()));
+                json.add("mod", modJson);
+            }
+            return json;
+        }
+
+        /**
+         * Overrides are applied again by {@link Mod#Mod}, but they only ever set, add or remove, so that's harmless.
+         */
+        private @Nullable Mod toMod(File jar) {
+            if (mod == null) {
+                return null;
+            }
+            return new Mod(mod.name(), mod.mainId(), new HashSet<>(mod.ids()), new HashSet<>(mod.dependencies()), stripJarExtension(jar));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the few entries of a jar that parsing a mod needs.
+ */
+public interface ModJarReader extends Closeable {
+    /**
+     * @param name The full name of the entry, like {@code META-INF/jars/example.jar}.
+     * @return A stream of the entry, or {@code null} if there isn't one.
+     */
+    @Nullable InputStream getEntry(String name) throws IOException;
+
+    /**
+     * @return The name of the jar, including the {@code .jar} extension.
+     */
+    String getName();
+
+    enum Type {
+        /**
+         * Uses {@link java.util.jar.JarFile}. Slower, but it's been around forever.
+         */
+        JAR_FILE,
+        /**
+         * Uses {@link MappedJarReader}. Faster, but Windows won't let us rename a file while it's mapped, and we can't
+         * unmap it ourselves, so don't use it there.
+         */
+        MAPPED;
+
+        public static Type getDefault() {
+            return System.getProperty("os.name", "").startsWith("Windows") ? JAR_FILE : MAPPED;
+        }
+
+        public ModJarReader open(File jar) throws IOException {
+            return switch (this) {
+                case JAR_FILE -> new JarFileReader(jar);
+                case MAPPED -> {
+                    try {
+                        yield new MappedJarReader(jar);
+                    } catch (MappedJarReader.UnsupportedZipException e) {
+                        Log.debug(() -> "Falling back to JarFile for " + jar.getName() + ": " + e.getMessage());
+                        yield new JarFileReader(jar);
+                    }
+                }
+            };
+        }
+    }
+}
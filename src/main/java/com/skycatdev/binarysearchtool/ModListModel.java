@@ -0,0 +1,79 @@
+package com.skycatdev.binarysearchtool;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list of mods for a {@link JList} that only tells the list about the rows that changed.
+ * Between steps, mods only move from one list to another without changing order, so most updates are a few removals
+ * or insertions instead of the whole list.
+ */
+public class ModListModel extends AbstractListModel<Mod> {
+    private final ArrayList<Mod> mods = new ArrayList<>();
+
+    @Override
+    public Mod getElementAt(int index) {
+        return mods.get(index);
+    }
+
+    @Override
+    public int getSize() {
+        return mods.size();
+    }
+
+    /**
+     * Changes the list to {@code newMods}. Must be called on the event dispatch thread.
+     *
+     * @param newMods The new contents. Not kept.
+     */
+    public void setMods(List<Mod> newMods) {
+        Set<Mod> keeping = Collections.newSetFromMap(new IdentityHashMap<>(newMods.size()));
+        keeping.addAll(newMods);
+        // Backwards, so removing a run doesn't move the rows before it
+        int runEnd = -1;
+        for (int i = mods.size() - 1; i >= -1; i--) {
+            boolean removing = i >= 0 && !keeping.contains(mods.get(i));
+            if (removing && runEnd == -1) {
+                runEnd = i;
+            } else if (!removing && runEnd != -1) {
+                mods.subList(i + 1, runEnd + 1).clear();
+                fireIntervalRemoved(this, i + 1, runEnd);
+                runEnd = -1;
+            }
+        }
+        Set<Mod> kept = Collections.newSetFromMap(new IdentityHashMap<>(mods.size()));
+        kept.addAll(mods);
+        int runStart = -1;
+        for (int i = 0; i <= newMods.size(); i++) {
+            boolean inserting = i < newMods.size() && !kept.contains(newMods.get(i));
+            if (inserting) {
+                if (runStart == -1) {
+                    runStart = i;
+                }
+                continue;
+            }
+            if (runStart != -1) {
+                mods.addAll(runStart, newMods.subList(runStart, i));
+                fireIntervalAdded(this, runStart, i - 1);
+                runStart = -1;
+            }
+            if (i < newMods.size() && mods.get(i) != newMods.get(i)) {
+                // Something moved, so just replace everything. Each event has to match the list when it's fired.
+                int oldSize = mods.size();
+                mods.clear();
+                if (oldSize > 0) {
+                    fireIntervalRemoved(this, 0, oldSize - 1);
+                }
+                mods.addAll(newMods);
+                if (!mods.isEmpty()) {
+                    fireIntervalAdded(this, 0, mods.size() - 1);
+                }
+                return;
+            }
+        }
+    }
+}
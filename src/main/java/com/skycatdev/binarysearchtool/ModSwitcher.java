@@ -0,0 +1,54 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns mods on and off in the folder the game loads mods from.
+ */
+public interface ModSwitcher {
+    /**
+     * @return The folder the game should load mods from for tests.
+     */
+    Path folder();
+
+    /**
+     * @param fileNames The names of the files in {@link ModSwitcher#folder()}.
+     * @return If the mod is enabled, or {@code null} if it's neither enabled nor disabled (like if it's missing).
+     */
+    @Nullable Boolean isEnabled(Set<String> fileNames, Mod mod);
+
+    /**
+     * @return If switching changes the user's mods folder, so it has to be journaled and put back.
+     */
+    boolean touchesModsFolder();
+
+    /**
+     * Called before a batch of {@link ModSwitcher#tryEnable(Mod)} calls, so setup for the whole batch is done once.
+     * Enabling still works without it.
+     *
+     * @param mods The mods the batch may enable.
+     */
+    default void beforeEnabling(List<Mod> mods) throws IOException {
+    }
+
+    /**
+     * Called after a batch of {@link ModSwitcher#tryDisable(Mod)} calls, so cleanup for the whole batch is done once.
+     */
+    default void afterDisabling() throws IOException {
+    }
+
+    /**
+     * @return {@code true} if the mod is disabled, including if it already was.
+     */
+    boolean tryDisable(Mod mod);
+
+    /**
+     * @return {@code true} if the mod is enabled, including if it already was.
+     */
+    boolean tryEnable(Mod mod);
+}
@@ -0,0 +1,137 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes every event as one line of json, for other programs to follow along.
+ * Events are only queued on the search's thread. A writer thread writes them in batches, so a slow file or socket never
+ * holds up the search. If the queue fills up, new events are dropped and counted instead of waiting.
+ */
+public class NdjsonSink implements SearchListener, Closeable {
+    private static final int QUEUE_SIZE = 4096;
+    /**
+     * Written after the last event to tell the writer to stop
+     */
+    private static final String END = new String("end");
+    private final ArrayBlockingQueue<String> lines = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final Writer writer;
+    private final @Nullable String label;
+    private final Thread writerThread;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * @param output Where to write. Closed when the sink is.
+     * @param label  Added to every event as {@code search}, to tell searches writing to the same place apart.
+     */
+    public NdjsonSink(OutputStream output, @Nullable String label) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.label = label;
+        this.writerThread = new Thread(this::write, "Event writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Appends events to a file, making it if needed.
+     */
+    public static NdjsonSink toFile(Path file, @Nullable String label) throws IOException {
+        return new NdjsonSink(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), label);
+    }
+
+    /**
+     * Connects to a program listening on a tcp port, and streams events to it.
+     */
+    public static NdjsonSink toSocket(String host, int port, @Nullable String label) throws IOException {
+        Socket socket = new Socket(host, port);
+        socket.shutdownInput();
+        return new NdjsonSink(socket.getOutputStream(), label);
+    }
+
+    /**
+     * Writes everything that was queued, then closes the output. Waits a few seconds at most.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (lines.offer(END, 5, TimeUnit.SECONDS)) {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            Log.warn("Dropped %d events because they were coming faster than they could be written".formatted(dropped.get()));
+        }
+    }
+
+    /**
+     * @return How many events were dropped because the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void onEvent(SearchEvent event) {
+        if (closed) {
+            return;
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("time", System.currentTimeMillis());
+        json.addProperty("type", event.type());
+        if (label != null) {
+            json.addProperty("search", label);
+        }
+        event.toJson().entrySet().forEach((entry) -> json.add(entry.getKey(), entry.getValue()));
+        if (!lines.offer(json.toString())) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void write() {
+        ArrayList<String> batch = new ArrayList<>();
+        try (writer) {
+            while (true) {
+                batch.add(lines.take());
+                lines.drainTo(batch);
+                for (String line : batch) {
+                    //noinspection StringEquality
+                    if (line == END) {
+                        writer.flush();
+                        return;
+                    }
+                    writer.write(line);
+                    writer.write('\n');
+                }
+                batch.clear();
+                // Only flush once nothing else is waiting, so bursts are one write
+                if (lines.isEmpty()) {
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            // The search doesn't need this, so keep going without it
+            closed = true;
+            Log.warn("Couldn't write events, stopping", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
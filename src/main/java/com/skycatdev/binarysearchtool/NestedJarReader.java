@@ -0,0 +1,69 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads a jar that's inside another jar straight from a stream, without writing it to disk.
+ * Only keeps the entries that parsing a mod can use: the {@code fabric.mod.json} and any jars (which may be JIJs).
+ */
+public class NestedJarReader implements ModJarReader {
+    /**
+     * Entry name -> contents
+     */
+    private final HashMap<String, byte[]> entries;
+    private final String name;
+
+    private NestedJarReader(HashMap<String, byte[]> entries, String name) {
+        this.entries = entries;
+        this.name = name;
+    }
+
+    /**
+     * Reads the jar from a stream. Does not close the stream.
+     *
+     * @param jarStream A stream at the start of the nested jar.
+     * @param name      The path of the nested jar inside the jar it's in.
+     */
+    public static NestedJarReader read(InputStream jarStream, String name) throws IOException {
+        HashMap<String, byte[]> entries = new HashMap<>();
+        // Not closing this, since it would close jarStream
+        ZipInputStream zipInputStream = new ZipInputStream(jarStream);
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            String entryName = entry.getName();
+            if (!entry.isDirectory() && (entryName.equals("fabric.mod.json") || entryName.endsWith(".jar"))) {
+                entries.put(entryName, zipInputStream.readAllBytes());
+            }
+        }
+        return new NestedJarReader(entries, name);
+    }
+
+    @Override
+    public void close() {
+        // Everything is in memory
+    }
+
+    /**
+     * @return A stream of the entry, or {@code null} if there isn't one (or it wasn't kept).
+     */
+    @Override
+    public @Nullable InputStream getEntry(String name) {
+        byte[] contents = entries.get(name);
+        if (contents == null) {
+            return null;
+        }
+        return new ByteArrayInputStream(contents);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
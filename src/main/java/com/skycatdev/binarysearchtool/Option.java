@@ -2,5 +2,12 @@ package com.skycatdev.binarysearchtool;
 
 import org.jetbrains.annotations.Nullable;
 
-public record Option(String name, @Nullable Runnable callback) {
+/**
+ * @param headlessDefault If this is chosen when nobody is there to answer, like in {@link HeadlessUi}. Dialogs with
+ *                        more than one option need exactly one of these.
+ */
+public record Option(String name, @Nullable Runnable callback, boolean headlessDefault) {
+    public Option(String name, @Nullable Runnable callback) {
+        this(name, callback, false);
+    }
 }
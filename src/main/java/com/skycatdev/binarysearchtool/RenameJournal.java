@@ -0,0 +1,156 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A write-ahead log of the renames a search makes in the mods folder.
+ * Each batch of renames is written down and flushed to disk before any of it happens, so if the search is killed part
+ * way through (or the power goes out), the next start can put every jar back the way it was.
+ * One line per entry, each a json object: {@code {"batch":1,"disable":[...],"enable":[...]}} before a batch, and
+ * {@code {"done":1}} after it.
+ */
+public class RenameJournal implements Closeable {
+    public static final String FILE_NAME = "binarysearchtool_journal.log";
+    private final Path journalFile;
+    private final FileChannel channel;
+    private int batches = 0;
+
+    private RenameJournal(Path journalFile, FileChannel channel) {
+        this.journalFile = journalFile;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts a new journal, replacing any old one. Call {@link RenameJournal#recover(Path, Path)} first.
+     */
+    public static RenameJournal create(Path journalFile) throws IOException {
+        FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new RenameJournal(journalFile, channel);
+    }
+
+    /**
+     * Puts back every jar that an unfinished search disabled, then deletes the journal. Does nothing if there isn't
+     * one. Every jar a search touches was enabled when it started, so putting things back means enabling them.
+     *
+     * @param journalFile The journal left by the last search.
+     * @param modsFolder  The mods folder the journal is for.
+     * @return The file names of the jars that were enabled again.
+     * @throws IOException If the journal couldn't be read, or a jar couldn't be enabled. The journal is kept, so it can
+     *                     be tried again.
+     */
+    public static List<String> recover(Path journalFile, Path modsFolder) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return List.of();
+        }
+        Log.info("Found a journal from a search that didn't finish, putting mods back");
+        TreeSet<String> touched = new TreeSet<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            try {
+                JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                for (String key : new String[]{"disable", "enable"}) {
+                    JsonArray jars = entry.getAsJsonArray(key);
+                    if (jars != null) {
+                        jars.forEach((jar) -> touched.add(jar.getAsString()));
+                    }
+                }
+            } catch (JsonParseException | IllegalStateException e) {
+                // A line cut off by a crash. It was never flushed, so none of its renames happened.
+                Log.warn("Skipping a broken journal line");
+            }
+        }
+        ArrayList<String> recovered = new ArrayList<>();
+        ArrayList<String> failed = new ArrayList<>();
+        for (String jar : touched) {
+            Path enabled = modsFolder.resolve(jar);
+            Path disabled = modsFolder.resolve(jar + ".disabled");
+            if (Files.exists(enabled) || !Files.exists(disabled)) {
+                continue;
+            }
+            try {
+                Files.move(disabled, enabled);
+                recovered.add(jar);
+            } catch (IOException e) {
+                Log.warn("Couldn't enable " + jar + " again");
+                failed.add(jar);
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new IOException("Couldn't enable " + String.join(", ", failed));
+        }
+        Files.delete(journalFile);
+        return recovered;
+    }
+
+    private static JsonArray toJson(Collection<String> jars) {
+        JsonArray array = new JsonArray();
+        jars.forEach(array::add);
+        return array;
+    }
+
+    /**
+     * Writes down a batch of renames and makes sure it's on disk. Call before doing any of them.
+     *
+     * @param disabling File names of jars about to be disabled.
+     * @param enabling  File names of jars about to be enabled.
+     * @return The number of the batch, for {@link RenameJournal#finishBatch(int)}.
+     */
+    public int beginBatch(Collection<String> disabling, Collection<String> enabling) throws IOException {
+        int batch = ++batches;
+        JsonObject entry = new JsonObject();
+        entry.addProperty("batch", batch);
+        entry.add("disable", toJson(disabling));
+        entry.add("enable", toJson(enabling));
+        write(entry);
+        channel.force(false);
+        return batch;
+    }
+
+    /**
+     * Closes the journal without deleting it.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Closes and deletes the journal. Only call once every jar is enabled again.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journalFile);
+    }
+
+    /**
+     * Notes that all renames of a batch happened. Not flushed, since recovery doesn't depend on it.
+     */
+    public void finishBatch(int batch) throws IOException {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("done", batch);
+        write(entry);
+    }
+
+    private void write(JsonElement entry) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((entry + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+}
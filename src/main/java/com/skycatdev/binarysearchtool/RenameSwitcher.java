@@ -0,0 +1,48 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Switches mods by renaming them to and from {@code .jar.disabled} in the mods folder itself.
+ */
+public class RenameSwitcher implements ModSwitcher {
+    private final Path modsPath;
+
+    public RenameSwitcher(Path modsPath) {
+        this.modsPath = modsPath;
+    }
+
+    @Override
+    public Path folder() {
+        return modsPath;
+    }
+
+    @Override
+    public @Nullable Boolean isEnabled(Set<String> fileNames, Mod mod) {
+        if (fileNames.contains(mod.jarName())) {
+            return true;
+        }
+        if (fileNames.contains(mod.jarName() + ".disabled")) {
+            return false;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean touchesModsFolder() {
+        return true;
+    }
+
+    @Override
+    public boolean tryDisable(Mod mod) {
+        return mod.tryDisable(modsPath);
+    }
+
+    @Override
+    public boolean tryEnable(Mod mod) {
+        return mod.tryEnable(modsPath);
+    }
+}
@@ -0,0 +1,82 @@
+package com.skycatdev.binarysearchtool;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Remembers how tests went, so the user doesn't have to launch the game for a set of mods that was already tested.
+ * Sets are the indices of every mod that was enabled, including forced mods and dependencies.
+ * The problem is assumed to need some mods to be enabled, so a set with everything a failing set had also fails, and a
+ * set with only things a passing set had also passes.
+ */
+public class ResultStore {
+    /**
+     * Enabled mods -> If the problem was gone
+     */
+    private final HashMap<BitSet, Boolean> results = new HashMap<>();
+    /**
+     * The smallest sets that failed. Bigger ones are implied.
+     */
+    private final ArrayList<BitSet> failing = new ArrayList<>();
+    /**
+     * The biggest sets that passed. Smaller ones are implied.
+     */
+    private final ArrayList<BitSet> passing = new ArrayList<>();
+
+    private static boolean isSubset(BitSet subset, BitSet superset) {
+        BitSet extra = (BitSet) subset.clone();
+        extra.andNot(superset);
+        return extra.isEmpty();
+    }
+
+    /**
+     * @param enabled The indices of every enabled mod.
+     * @return If the problem is gone with those mods, or {@code null} if we don't know.
+     */
+    public @Nullable Boolean get(BitSet enabled) {
+        Boolean result = results.get(enabled);
+        if (result != null) {
+            return result;
+        }
+        for (BitSet failed : failing) {
+            if (isSubset(failed, enabled)) {
+                return false;
+            }
+        }
+        for (BitSet passed : passing) {
+            if (isSubset(enabled, passed)) {
+                return true;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param enabled    The indices of every enabled mod. Copied.
+     * @param successful If the problem was gone.
+     */
+    public void put(BitSet enabled, boolean successful) {
+        BitSet copy = (BitSet) enabled.clone();
+        results.put(copy, successful);
+        if (successful) {
+            if (passing.stream().anyMatch((passed) -> isSubset(copy, passed))) {
+                return;
+            }
+            passing.removeIf((passed) -> isSubset(passed, copy));
+            passing.add(copy);
+        } else {
+            if (failing.stream().anyMatch((failed) -> isSubset(failed, copy))) {
+                return;
+            }
+            failing.removeIf((failed) -> isSubset(copy, failed));
+            failing.add(copy);
+        }
+    }
+
+    public int size() {
+        return results.size();
+    }
+}
@@ -0,0 +1,204 @@
+package com.skycatdev.binarysearchtool;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A copy of the instance that tests can run in, so several can run at once.
+ * Mods are linked into the sandbox's mods folder with a {@link StagingSwitcher}. The rest of the instance is copied,
+ * except jars (like the server jar) and folders like {@code libraries}, which are hard linked when possible since
+ * nothing writes to them. A server in a sandbox gets its own port, so they can all run at once.
+ */
+public class Sandbox {
+    /**
+     * Folders of the instance that aren't copied. Mods are linked instead, and the rest are made by the game.
+     */
+    private static final Set<String> SKIPPED_FOLDERS = Set.of("mods", "logs", "crash-reports");
+    /**
+     * Files this tool keeps next to the mods folder. Only the real search uses them.
+     */
+    private static final Set<String> SKIPPED_FILES = Set.of(ModCache.FILE_NAME, RenameJournal.FILE_NAME, SearchSession.FILE_NAME, Main.LOG_FILE_NAME);
+    /**
+     * The ports in {@code server.properties}, and their defaults. Each sandbox adds its number plus one to them.
+     * An empty query port is left alone, since it means the server port.
+     */
+    private static final Map<String, Integer> PORTS = Map.of("server-port", 25565, "query.port", 25565, "rcon.port", 25575);
+    /**
+     * Folders of the instance the game only reads, so their files can be hard linked instead of copied
+     */
+    private static final Set<String> READ_ONLY_FOLDERS = Set.of("libraries", "versions", "assets", ".fabric");
+    private final Path folder;
+    private final StagingSwitcher switcher;
+    private final TestOracle oracle;
+    /**
+     * Mods that are linked into the sandbox right now
+     */
+    private final BitSet enabledMods = new BitSet();
+
+    private Sandbox(Path folder, StagingSwitcher switcher, TestOracle oracle) {
+        this.folder = folder;
+        this.switcher = switcher;
+        this.oracle = oracle;
+    }
+
+    /**
+     * Makes (or updates) sandboxes. Files that are already there with the same size and last-modified time aren't
+     * copied again, so later runs are quick.
+     *
+     * @param modsPath         The user's mods folder. Its parent is the instance that is copied.
+     * @param sandboxesFolder  The folder to put the sandboxes in. Must not be inside the instance.
+     * @param count            How many sandboxes to make.
+     * @param oracleForFolder  Makes the oracle that tests in a sandbox, given the sandbox folder.
+     * @param mods             The mods that may be linked into the sandboxes.
+     */
+    public static List<Sandbox> createAll(Path modsPath, Path sandboxesFolder, int count, Function<Path, TestOracle> oracleForFolder, List<Mod> mods) throws IOException {
+        Path instance = modsPath.toAbsolutePath().getParent();
+        // Real paths, so a link into the instance can't make it copy the sandboxes into themselves
+        if (StagingSwitcher.realPath(sandboxesFolder).startsWith(StagingSwitcher.realPath(instance))) {
+            throw new IOException("The sandboxes can't be inside the instance they copy");
+        }
+        ArrayList<Sandbox> sandboxes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Path folder = sandboxesFolder.resolve("sandbox-" + i);
+            Log.debug("Setting up " + folder);
+            copyInstance(instance, folder);
+            assignPorts(folder, i);
+            StagingSwitcher switcher = new StagingSwitcher(modsPath, folder.resolve("mods"));
+            switcher.prepare(mods);
+            sandboxes.add(new Sandbox(folder, switcher, oracleForFolder.apply(folder)));
+        }
+        return sandboxes;
+    }
+
+    private static void copyInstance(Path instance, Path folder) throws IOException {
+        Files.walkFileTree(instance, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Path relative = instance.relativize(dir);
+                if (relative.getNameCount() == 1 && SKIPPED_FOLDERS.contains(relative.toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                // A staging folder, which only has links to the real mods
+                if (Files.exists(dir.resolve(StagingSwitcher.MARKER_FILE_NAME))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(folder.resolve(relative.toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path relative = instance.relativize(file);
+                if (relative.getNameCount() == 1 && SKIPPED_FILES.contains(relative.toString())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path copy = folder.resolve(relative.toString());
+                if (Files.exists(copy) && Files.size(copy) == attrs.size() && Files.getLastModifiedTime(copy).equals(attrs.lastModifiedTime())) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Files.deleteIfExists(copy);
+                if (file.getFileName().toString().endsWith(".jar") || (relative.getNameCount() > 1 && READ_ONLY_FOLDERS.contains(relative.getName(0).toString()))) {
+                    try {
+                        Files.createLink(copy, file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        // Another drive, so copy it
+                    }
+                }
+                Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Moves every port in the sandbox's {@code server.properties} up by the sandbox's number plus one. Otherwise, every
+     * server but one would fail to bind, which looks just like the problem. Does nothing for a client instance.
+     */
+    private static void assignPorts(Path folder, int index) throws IOException {
+        Path properties = folder.resolve("server.properties");
+        if (!Files.exists(properties)) {
+            return;
+        }
+        List<String> lines = new ArrayList<>(Files.readAllLines(properties, StandardCharsets.ISO_8859_1));
+        boolean hasServerPort = false;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int equals = line.indexOf('=');
+            if (equals == -1) {
+                continue;
+            }
+            String key = line.substring(0, equals).strip();
+            int port = PORTS.getOrDefault(key, -1);
+            if (port == -1) {
+                continue;
+            }
+            try {
+                port = Integer.parseInt(line.substring(equals + 1).strip());
+            } catch (NumberFormatException e) {
+                if (key.equals("query.port")) {
+                    continue;
+                }
+                // Otherwise, empty means the default
+            }
+            lines.set(i, key + "=" + (port + index + 1));
+            hasServerPort |= key.equals("server-port");
+        }
+        if (!hasServerPort) {
+            lines.add("server-port=" + (PORTS.get("server-port") + index + 1));
+        }
+        Files.write(properties, lines, StandardCharsets.ISO_8859_1);
+    }
+
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * Links exactly the given mods into the sandbox, changing only the ones that are different from last time.
+     *
+     * @param enabled Indices of the mods to enable.
+     * @param mods    All mods, by index.
+     * @throws IOException If a mod couldn't be switched.
+     */
+    public void stage(BitSet enabled, List<Mod> mods) throws IOException {
+        BitSet changed = (BitSet) enabled.clone();
+        changed.xor(enabledMods);
+        ArrayList<Mod> enabling = new ArrayList<>();
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            if (enabled.get(i)) {
+                enabling.add(mods.get(i));
+            }
+        }
+        switcher.beforeEnabling(enabling);
+        for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+            Mod mod = mods.get(i);
+            if (enabled.get(i) ? !switcher.tryEnable(mod) : !switcher.tryDisable(mod)) {
+                throw new IOException("Couldn't switch %s in %s".formatted(mod.jarName(), folder));
+            }
+            enabledMods.set(i, enabled.get(i));
+        }
+        switcher.afterDisabling();
+    }
+
+    /**
+     * Runs the test in this sandbox.
+     *
+     * @return If the problem was gone.
+     */
+    public boolean test() throws IOException, InterruptedException {
+        return oracle.test();
+    }
+}
@@ -0,0 +1,181 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Something that happened during a search, for {@link SearchListener}s. Steps are numbered like
+ * {@link SearchUi#updateProgress(int, int)}.
+ */
+public sealed interface SearchEvent {
+    /**
+     * @return The name of the event, like {@code step_proposed}.
+     */
+    String type();
+
+    /**
+     * @return The fields of the event, without the type.
+     */
+    JsonObject toJson();
+
+    /**
+     * @param modsFolder The folder mods are being discovered in.
+     */
+    record DiscoveryStarted(Path modsFolder) implements SearchEvent {
+        @Override
+        public String type() {
+            return "discovery_started";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("modsFolder", modsFolder.toAbsolutePath().toString());
+            return json;
+        }
+    }
+
+    /**
+     * @param jars   How many jars were found.
+     * @param mods   How many of them are Fabric mods.
+     * @param units  How many groups of mods have to be enabled together.
+     * @param millis How long discovery took.
+     */
+    record DiscoveryFinished(int jars, int mods, int units, long millis) implements SearchEvent {
+        @Override
+        public String type() {
+            return "discovery_finished";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("jars", jars);
+            json.addProperty("mods", mods);
+            json.addProperty("units", units);
+            json.addProperty("millis", millis);
+            return json;
+        }
+    }
+
+    /**
+     * @param step         The step the set is for.
+     * @param testing      How many candidates are being tested.
+     * @param dependencies How many working mods are enabled because the tested ones need them.
+     * @param candidates   How many mods might still be the problem.
+     */
+    record StepProposed(int step, int testing, int dependencies, int candidates) implements SearchEvent {
+        @Override
+        public String type() {
+            return "step_proposed";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("step", step);
+            json.addProperty("testing", testing);
+            json.addProperty("dependencies", dependencies);
+            json.addProperty("candidates", candidates);
+            return json;
+        }
+    }
+
+    /**
+     * @param enabled How many mods are enabled now.
+     * @param changed How many jars were renamed (or linked) to get there.
+     * @param millis  How long it took.
+     */
+    record SetApplied(int enabled, int changed, long millis) implements SearchEvent {
+        @Override
+        public String type() {
+            return "set_applied";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("enabled", enabled);
+            json.addProperty("changed", changed);
+            json.addProperty("millis", millis);
+            return json;
+        }
+    }
+
+    /**
+     * @param step       The step the result is for.
+     * @param successful If the problem was gone.
+     * @param known      If the result was already known from earlier tests, or replayed from a resumed session, so the
+     *                   game wasn't launched.
+     * @param candidates How many mods might still be the problem, after the result.
+     */
+    record ResultRecorded(int step, boolean successful, boolean known, int candidates) implements SearchEvent {
+        @Override
+        public String type() {
+            return "result_recorded";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("step", step);
+            json.addProperty("successful", successful);
+            json.addProperty("known", known);
+            json.addProperty("candidates", candidates);
+            return json;
+        }
+    }
+
+    /**
+     * One test of a parallel round. Followed by {@link ResultRecorded} once the whole round is in.
+     *
+     * @param step        The round.
+     * @param sandbox     Which sandbox, starting at 0.
+     * @param testing     How many candidates were tested.
+     * @param successful  If the problem was gone.
+     * @param stageMillis How long linking the mods into the sandbox took.
+     * @param testMillis  How long the test took.
+     */
+    record SandboxTested(int step, int sandbox, int testing, boolean successful, long stageMillis, long testMillis) implements SearchEvent {
+        @Override
+        public String type() {
+            return "sandbox_tested";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("step", step);
+            json.addProperty("sandbox", sandbox);
+            json.addProperty("testing", testing);
+            json.addProperty("successful", successful);
+            json.addProperty("stageMillis", stageMillis);
+            json.addProperty("testMillis", testMillis);
+            return json;
+        }
+    }
+
+    /**
+     * @param problematicIds The main ids of the mods the problem comes from.
+     * @param steps          How many steps the search took.
+     */
+    record Finished(List<String> problematicIds, int steps) implements SearchEvent {
+        @Override
+        public String type() {
+            return "finished";
+        }
+
+        @Override
+        public JsonObject toJson() {
+            JsonArray ids = new JsonArray();
+            problematicIds.forEach(ids::add);
+            JsonObject json = new JsonObject();
+            json.add("problematicIds", ids);
+            json.addProperty("steps", steps);
+            return json;
+        }
+    }
+}
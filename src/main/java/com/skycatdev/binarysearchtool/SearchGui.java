@@ -8,10 +8,17 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SearchGui extends JFrame implements SearchUi {
+    /**
+     * How long to wait for more updates before showing them, about one frame
+     */
+    private static final int UPDATE_DELAY = 16;
     public final JTextArea instructionsArea;
     public final JPanel bottomPanel;
     public final JButton advancedButton;
@@ -21,12 +28,27 @@ public class SearchGui extends JFrame implements SearchUi {
     public final JButton failureButton;
     public final JButton successButton;
     public final JSplitPane middlePanel;
-    public final JTextPane maybeProblemPane;
-    public final JTextPane notProblemPane;
+    public final JList<Mod> maybeProblemList;
+    public final JList<Mod> notProblemList;
     public final JPanel topPanel;
     public final JButton startButton;
     public final JPanel mainPanel;
     public @Nullable SearchHandler searchHandler = null;
+    private final ModListModel maybeProblemModel = new ModListModel();
+    private final ModListModel notProblemModel = new ModListModel();
+    /**
+     * The newest lists and progress that haven't been shown yet. Only the newest matters, so older ones are replaced.
+     */
+    private final AtomicReference<PendingLists> pendingLists = new AtomicReference<>();
+    private final AtomicReference<PendingProgress> pendingProgress = new AtomicReference<>();
+    /**
+     * If {@link SearchGui#updateTimer} has been asked to start, and hasn't shown the updates yet
+     */
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    /**
+     * Shows pending updates on the event dispatch thread, once per burst of updates
+     */
+    private final Timer updateTimer;
 
     /**
      * Create the frame.
@@ -102,24 +124,19 @@ public class SearchGui extends JFrame implements SearchUi {
         middlePanel = new JSplitPane();
         mainPanel.add(middlePanel, BorderLayout.CENTER);
 
-        maybeProblemPane = new JTextPane();
-        maybeProblemPane.setText("Might be the problem");
-        maybeProblemPane.setEditable(false);
-
-        JScrollPane leftSplitPane = new JScrollPane(maybeProblemPane);
-        leftSplitPane.setLayout(new ScrollPaneLayout());
-        leftSplitPane.createVerticalScrollBar();
+        maybeProblemList = createModList(maybeProblemModel);
+        JScrollPane leftSplitPane = new JScrollPane(maybeProblemList);
+        leftSplitPane.setColumnHeaderView(new JLabel("Might be the problem:"));
         middlePanel.setLeftComponent(leftSplitPane);
 
-        notProblemPane = new JTextPane();
-        notProblemPane.setText("Not the problem");
-        notProblemPane.setEditable(false);
-
-        JScrollPane rightSplitPane = new JScrollPane(notProblemPane);
-        rightSplitPane.setLayout(new ScrollPaneLayout());
-        rightSplitPane.createVerticalScrollBar();
+        notProblemList = createModList(notProblemModel);
+        JScrollPane rightSplitPane = new JScrollPane(notProblemList);
+        rightSplitPane.setColumnHeaderView(new JLabel("Not the problem:"));
         middlePanel.setRightComponent(rightSplitPane);
 
+        updateTimer = new Timer(UPDATE_DELAY, (event) -> showPendingUpdates());
+        updateTimer.setRepeats(false);
+
         topPanel = new JPanel();
         mainPanel.add(topPanel, BorderLayout.NORTH);
         topPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 5, 5));
@@ -134,7 +151,20 @@ public class SearchGui extends JFrame implements SearchUi {
 
         setVisible(true);
 
-        Main.log("Initialized");
+        Log.debug("Initialized");
+    }
+
+    private static JList<Mod> createModList(ModListModel model) {
+        JList<Mod> list = new JList<>(model);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                return super.getListCellRendererComponent(list, ((Mod) value).name(), index, isSelected, cellHasFocus);
+            }
+        });
+        // Every row is one line, so the list doesn't have to measure each one to lay out
+        list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight() + 2);
+        return list;
     }
 
     @Override
@@ -185,7 +215,7 @@ public class SearchGui extends JFrame implements SearchUi {
         if (problematicMods.size() == 1) {
             JOptionPane.showMessageDialog(this, "Finished! The problematic mod is " + problematicMods.get(0).name() + ".");
         } else {
-            StringBuilder message = new StringBuilder("Finished! The problem is one of these mods, which all rely on each other:");
+            StringBuilder message = new StringBuilder("Finished! The problem comes from these mods. Either they rely on each other and one is the problem, or it only happens when they're all there:");
             for (Mod problematicMod : problematicMods) {
                 message.append('\n');
                 message.append(problematicMod.name());
@@ -219,7 +249,7 @@ public class SearchGui extends JFrame implements SearchUi {
 
     @Override
     public void start() {
-        Main.log("Requested start searching");
+        Log.debug("Requested start searching");
         if (getSearchHandler() != null) {
             new SwingWorker<Void, Void>() {
                 @Override
@@ -250,27 +280,49 @@ public class SearchGui extends JFrame implements SearchUi {
         successButton.setEnabled(false);
     }
 
-    @Override
-    public void updateLists(ArrayList<Mod> candidateMods, ArrayList<Mod> workingMods) {
-        Main.log("Updating lists");
-        StringBuilder maybeProblem = new StringBuilder("Might be the problem:\n");
-        for (Mod candidate : candidateMods) {
-            maybeProblem.append(candidate.name());
-            maybeProblem.append('\n');
+    /**
+     * Shows the newest lists and progress. Runs on the event dispatch thread.
+     */
+    private void showPendingUpdates() {
+        updateScheduled.set(false);
+        PendingLists lists = pendingLists.getAndSet(null);
+        if (lists != null) {
+            maybeProblemModel.setMods(lists.candidateMods());
+            notProblemModel.setMods(lists.workingMods());
+        }
+        PendingProgress progress = pendingProgress.getAndSet(null);
+        if (progress != null) {
+            progressBar.setMaximum(progress.max());
+            progressBar.setValue(progress.finished());
         }
-        maybeProblemPane.setText(maybeProblem.toString());
-        StringBuilder notProblem = new StringBuilder("Not the problem:\n");
-        for (Mod candidate : workingMods) {
-            notProblem.append(candidate.name());
-            notProblem.append('\n');
+    }
+
+    /**
+     * Shows pending updates soon. Safe to call from any thread, and many calls at once only show once.
+     */
+    private void scheduleUpdate() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(updateTimer::restart);
         }
-        notProblemPane.setText(notProblem.toString());
+    }
+
+    @Override
+    public void updateLists(ArrayList<Mod> candidateMods, ArrayList<Mod> workingMods) {
+        Log.debug("Updating lists");
+        pendingLists.set(new PendingLists(List.copyOf(candidateMods), List.copyOf(workingMods)));
+        scheduleUpdate();
     }
 
     @Override
     public void updateProgress(int finished, int max) {
-        Main.log("Updating progress");
-        progressBar.setMaximum(max);
-        progressBar.setValue(finished);
+        Log.debug("Updating progress");
+        pendingProgress.set(new PendingProgress(finished, max));
+        scheduleUpdate();
+    }
+
+    private record PendingLists(List<Mod> candidateMods, List<Mod> workingMods) {
+    }
+
+    private record PendingProgress(int finished, int max) {
     }
 }
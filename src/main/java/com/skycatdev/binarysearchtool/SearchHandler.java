@@ -3,53 +3,141 @@ package com.skycatdev.binarysearchtool;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.skycatdev.binarysearchtool.strategy.SearchState;
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SearchHandler {
     private static final Option[] DO_NOTHING_OPTION = {new Option("OK", null)};
     /**
-     * A list of all mods from the beginning
+     * How many jars to read at once when discovering. Discovery is mostly waiting on disk (or network), so this is
+     * allowed to be more than the number of cores.
+     */
+    private static final int DISCOVERY_THREADS = Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors() * 2));
+    /**
+     * How many jars to rename at once. Renames are waiting on the filesystem (and sometimes antivirus), not the cpu.
+     */
+    private static final int RENAME_THREADS = 8;
+    /**
+     * A list of all mods from the beginning. A mod's index in this list is its index in the sets below, and in
+     * {@link SearchHandler#graph}.
      */
     private final ArrayList<Mod> mods = new ArrayList<>();
     /**
      * Mods that have been verified as working
      */
-    private final ArrayList<Mod> workingMods = new ArrayList<>();
+    private final BitSet workingMods = new BitSet();
     /**
      * Mods that may or may not be the problem
      */
-    private final ArrayList<Mod> candidateMods = new ArrayList<>();
+    private final BitSet candidateMods = new BitSet();
     /**
-     * Mods that we are checking for problems
+     * Candidates that we are checking for problems
      */
-    private final ArrayList<Mod> testingMods = new ArrayList<>();
+    private final BitSet testingMods = new BitSet();
     /**
      * Mods that are verified as working AND are dependencies of testingMods
      */
-    private final ArrayList<Mod> testingDependencies = new ArrayList<>();
-    private final ArrayList<Mod> forceEnabled = new ArrayList<>();
+    private final BitSet testingDependencies = new BitSet();
+    private final BitSet forceEnabled = new BitSet();
+    /**
+     * Mods whose jar is enabled in the folder right now
+     */
+    private final BitSet enabledMods = new BitSet();
+    /**
+     * How tests went, so the same mods don't have to be tested twice
+     */
+    private final ResultStore results = new ResultStore();
+    private final ExecutorService renameExecutor = Executors.newFixedThreadPool(RENAME_THREADS, (runnable) -> {
+        Thread thread = new Thread(runnable, "Mod renaming");
+        thread.setDaemon(true);
+        return thread;
+    });
     private final Path modsPath;
+    /**
+     * How mods are turned on and off for tests
+     */
+    private final ModSwitcher switcher;
+    private final CopyOnWriteArrayList<SearchListener> listeners = new CopyOnWriteArrayList<>();
     private final SearchUi ui;
-    private final Comparator<Mod> modComparator = Comparator.<Mod>comparingInt((mod) -> -mod.dependencies().size())
-            .thenComparing(Mod::mainId, String::compareTo)
-            .thenComparing(Mod::name, String::compareTo)
-            .thenComparing(Mod::filename, String::compareTo);
+    private final SearchOptions options;
+    private SearchStrategy strategy;
+    private SearchStrategy.Type strategyType;
+    /**
+     * Made once mods are discovered. Deleted once every mod is enabled again.
+     */
+    private @Nullable RenameJournal journal = null;
+    /**
+     * Watches the game folder during a test, so a crash can say which mods to suspect
+     */
+    private @Nullable LogWatcher logWatcher = null;
+    private @Nullable CrashSignature crashSignature = null;
+    /**
+     * The jars found when discovering, to check a {@link SearchSession} against
+     */
+    private List<SearchSession.JarFingerprint> jarFingerprints = List.of();
+    /**
+     * Every answered step so far, saved after each one so the search can be resumed
+     */
+    private final ArrayList<SearchSession.Step> steps = new ArrayList<>();
+    /**
+     * A session to replay when the search starts, or {@code null} to start fresh. Set by a dialog callback, which may
+     * be on another thread.
+     */
+    private volatile @Nullable SearchSession resumeSession = null;
+    /**
+     * Made once mods are discovered
+     */
+    private DependencyGraph graph = new DependencyGraph(List.of());
+    /**
+     * Made once mods are discovered
+     */
+    private SearchState state = new SearchState(graph, candidateMods, workingMods, forceEnabled);
     private int maxIterations = 0;
     private int iterations = 0;
+    private boolean started = false;
     private boolean finished = false;
     private boolean madeShutdownHook = false;
 
-    private SearchHandler(Path modsPath, SearchUi ui) {
+    private SearchHandler(Path modsPath, SearchUi ui, SearchOptions options) {
         this.modsPath = modsPath;
+        this.switcher = options.stagingFolder() == null ? new RenameSwitcher(modsPath) : new StagingSwitcher(modsPath, options.stagingFolder());
         this.ui = ui;
+        this.options = options;
+        this.strategyType = options.strategy();
+        this.strategy = strategyType.create(options);
+        this.listeners.addAll(options.listeners());
+    }
+
+    public void addListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SearchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells every listener about the event. A listener that throws doesn't stop the search or the other listeners.
+     */
+    private void publish(SearchEvent event) {
+        for (SearchListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                Log.warn("A listener failed on " + event.type(), e);
+            }
+        }
     }
 
     /**
@@ -61,73 +149,27 @@ public class SearchHandler {
      */
     @SuppressWarnings("UnusedReturnValue")
     public static SearchHandler createWithUi(Path inputPath, SearchUi ui) throws IllegalArgumentException {
-        SearchHandler searchHandler = new SearchHandler(inputPath, ui);
+        return createWithUi(inputPath, ui, new SearchOptions());
+    }
+
+    /**
+     * @param inputPath A validated path to the mods folder.
+     * @param ui        The frontend ui to use.
+     * @param options   Extra settings for the search.
+     * @return A new {@link SearchHandler}.
+     * @throws IllegalArgumentException If the file at {@code inputPath} does not exist, or the staging folder is the
+     *                                  mods folder or inside it.
+     * @implSpec {@link SearchUi#initialize(SearchHandler)} has NOT been called.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public static SearchHandler createWithUi(Path inputPath, SearchUi ui, SearchOptions options) throws IllegalArgumentException {
+        SearchHandler searchHandler = new SearchHandler(inputPath, ui, options);
         searchHandler.discoverMods();
         ui.initialize(searchHandler);
         searchHandler.addShutdownHook();
         return searchHandler;
     }
 
-    private static <T> void rotateList(ArrayList<T> list, int rotation) {
-        for (int i = 0; i < rotation; i++) {
-            list.add(list.remove(0));
-        }
-    }
-
-    private void addDeps(Mod mod) {
-        Main.log("Resolving dependencies");
-        // Add dependencies
-        for (String dependency : mod.dependencies()) {
-            if (dependency.equals("minecraft") || dependency.equals("fabricloader") || dependency.equals("java"))
-                continue;
-            // Check if we already have it
-            if (testingMods.stream().anyMatch((testMod) -> testMod.ids().contains(dependency))) continue;
-            if (testingDependencies.stream().anyMatch((dependencyMod) -> dependencyMod.ids().contains(dependency)))
-                continue;
-
-            // Check if it's a candidate
-            boolean found = false;
-            for (Mod workingMod : workingMods) {
-                if (workingMod.ids().contains(dependency)) {
-                    testingDependencies.add(workingMod);
-                    addDeps(workingMod);
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
-                for (int i = 0; i < candidateMods.size(); i++) {
-                    if (candidateMods.get(i).ids().contains(dependency)) {
-                        Mod candidateMod = candidateMods.remove(i);
-                        testingMods.add(candidateMod);
-                        addDeps(candidateMod);
-                        found = true;
-                        break;
-                    }
-                }
-            }
-            if (!found) {
-                if (mods.stream().anyMatch((mod1 -> mod1.ids().contains(dependency)))) {
-                    Main.log("Mod gone wot");
-                    ui.asyncDisplayOption("Mod gone wot",
-                            "I did an oops, it should be in either testingMods, candidateMods, or working mods.\n" +
-                            "Please report this, unless you messed with files. In that case, have an angry face >:(",
-                            MessageType.ERROR,
-                            new Option[]{
-                                    new Option("I got an angry face", this::onFatalError),
-                                    new Option("I didn't get an angry face", this::onFatalError)});
-                } else {
-                    ui.asyncDisplayOption("Missing dependency",
-                            "You seem to be missing a dependency - %s. Fabric should've told you this. If I'm wrong, report this.".formatted(dependency),
-                            MessageType.WARNING,
-                            new Option[]{new Option("OK", null), new Option("Abort", this::onFatalError)}
-                    );
-                    Main.log("Missing a dependency");
-                }
-            }
-        }
-    }
-
     /**
      * Try to force enable a mod by id.
      * @param id The id of the mod to force enable.
@@ -144,12 +186,29 @@ public class SearchHandler {
 
     @SuppressWarnings("UnusedReturnValue")
     public boolean addForceEnabled(Mod mod) {
-        if (forceEnabled.contains(mod)) {
+        int index = graph.indexOf(mod);
+        if (index == -1 || forceEnabled.get(index)) {
             return false;
         }
-        forceEnabled.add(mod);
-        workingMods.add(mod);
-        candidateMods.remove(mod);
+        forceEnabled.set(index);
+        workingMods.set(index);
+        candidateMods.clear(index);
+        return true;
+    }
+
+    /**
+     * Changes how the search chooses what to test. Only works before the search has started.
+     *
+     * @param type The kind of strategy to use.
+     * @return {@code false} if the search has already started.
+     */
+    public boolean setStrategy(SearchStrategy.Type type) {
+        if (started) {
+            return false;
+        }
+        strategyType = type;
+        strategy = type.create(options);
+        maxIterations = strategy.estimateSteps(mods.size());
         return true;
     }
 
@@ -157,7 +216,7 @@ public class SearchHandler {
         if (!madeShutdownHook) {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 if (!finished) {
-                    mods.forEach((mod) -> mod.tryEnable(modsPath));
+                    tryEnableAllAndDeleteJournal();
                 }
             }));
             madeShutdownHook = true;
@@ -168,101 +227,568 @@ public class SearchHandler {
      * @param lastSuccessful If the last set was successful (error is gone)
      */
     public void bisect(boolean lastSuccessful) {
-        Main.log("Top of bisect");
+        Log.debug("Top of bisect");
         assert modsPath != null;
-        // Disabled all the previously-enabled mods
-        disableAll(testingMods);
-        disableAll(testingDependencies);
+        // Disabled with the next batch of renames
+        BitSet previouslyEnabled = (BitSet) testingMods.clone();
+        previouslyEnabled.or(testingDependencies);
 
         // Decide which set contains the problem
-        if (lastSuccessful) {
-            workingMods.addAll(testingMods);
+        if (started) {
+            if (strategy.trustsAnswers()) {
+                results.put(previouslyEnabled, lastSuccessful);
+            }
+            strategy.consume(state, testingMods, lastSuccessful);
+            publish(new SearchEvent.ResultRecorded(iterations, lastSuccessful, false, candidateMods.cardinality()));
+        }
+        @Nullable CrashSignature lastCrash = stopWatching();
+        @Nullable BitSet suspects = null;
+        if (started && !lastSuccessful && lastCrash != null && !lastCrash.isEmpty()) {
+            suspects = hintFromCrash(lastCrash);
+        }
+        if (started) {
+            steps.add(new SearchSession.Step(previouslyEnabled, lastSuccessful, suspects));
+            saveSession();
         } else {
-            workingMods.addAll(candidateMods);
-            candidateMods.clear();
-            candidateMods.addAll(testingMods);
+            @Nullable SearchSession session = resumeSession;
+            if (session != null) {
+                replay(session);
+                resumeSession = null;
+            }
         }
-        testingMods.clear();
-        testingDependencies.clear();
+        started = true;
         iterations++;
-
-        // Ready for next step
-        if (candidateMods.size() == 1) {
-            iterations++;
-            enableAll(mods);
-            finished = true;
-            ui.updateLists(candidateMods, workingMods);
-            ui.updateProgress(iterations, maxIterations);
-            ui.onFinished(candidateMods);
-            return;
-        } else {
+        Log.debug("Beginning bisection");
+        if (chooseNextTest() == null) {
             if (candidateMods.isEmpty()) {
+                applyRenames(previouslyEnabled, new BitSet());
                 ui.asyncDisplayOption("Uh-oh!", "Oops! There's no candidate mods. Get help using the help button in the main window.", MessageType.ERROR, new Option[]{new Option("OK", this::onFatalError)});
-                return;
+            } else {
+                finish(previouslyEnabled);
             }
+            return;
         }
-        Main.log("Beginning bisection");
-        // Choose mods to use
-        int rotation = 0;
-        boolean choseMods = false;
-        while (rotation < candidateMods.size()) {
-            candidateMods.sort(modComparator);
-            rotateList(candidateMods, rotation);
-            ui.updateLists(candidateMods, workingMods);
-            ui.updateProgress(iterations, maxIterations);
-            int candidatesSize = candidateMods.size();
-            while (testingMods.size() < candidatesSize / 2) {
-                // Add the mod to the testing set, remove it from the candidate set
-                Mod mod = candidateMods.remove(0);
-                testingMods.add(mod);
-                Main.log("Added mod " + mod.name());
-                addDeps(mod);
-            }
-            if (!candidateMods.isEmpty()) {
-                choseMods = true;
-                break;
-            }
-            Main.log("Unhelpful search set, rotating");
-            candidateMods.addAll(testingMods);
+        ArrayList<Mod> sortedCandidates = toList(candidateMods);
+        sortedCandidates.sort(Mod.COMPARATOR);
+        ui.updateLists(sortedCandidates, toList(workingMods));
+        ui.updateProgress(iterations, maxIterations);
+
+        // Enable mods we're using
+        BitSet enabled = (BitSet) testingMods.clone();
+        enabled.or(testingDependencies);
+        applyRenames(previouslyEnabled, enabled);
+        startWatching();
+        ui.sendNextStepInstructions();
+        ui.onBisectFinished();
+        Log.debug("Bottom of bisect");
+    }
+
+    /**
+     * Chooses what to test next, and puts it in {@link SearchHandler#testingMods} and
+     * {@link SearchHandler#testingDependencies}. Sets whose result is already known are answered without a test.
+     *
+     * @return Every mod to enable for the test, or {@code null} if the search is finished or there are no candidates.
+     */
+    private @Nullable BitSet chooseNextTest() {
+        while (true) {
             testingMods.clear();
             testingDependencies.clear();
-            rotation++;
+            if (candidateMods.isEmpty()) {
+                return null;
+            }
+            // Choose mods to use
+            BitSet proposed = strategy.propose(state);
+            if (proposed == null) {
+                return null;
+            }
+            // Everything needed for the test is enabled. The candidates are what's being tested, the rest is working.
+            BitSet enabled = state.enabledFor(proposed);
+            testingMods.or(enabled);
+            testingMods.and(candidateMods);
+            testingDependencies.or(enabled);
+            testingDependencies.andNot(testingMods);
+            publish(new SearchEvent.StepProposed(iterations, testingMods.cardinality(), testingDependencies.cardinality(), candidateMods.cardinality()));
+            @Nullable Boolean knownResult = strategy.trustsAnswers() ? results.get(enabled) : null;
+            if (knownResult == null) {
+                return enabled;
+            }
+            // No need to launch the game for this one
+            Log.debug("Already know the result of this set: " + (knownResult ? "success" : "failure"));
+            strategy.consume(state, testingMods, knownResult);
+            publish(new SearchEvent.ResultRecorded(iterations, knownResult, true, candidateMods.cardinality()));
         }
-        if (!choseMods) {
+    }
+
+    /**
+     * Gives the strategy the answers from a saved session again. Strategies don't use randomness, so they propose
+     * the same sets and end up where the session left off. Stops early if a set doesn't match what was saved.
+     */
+    private void replay(SearchSession session) {
+        for (SearchSession.Step step : session.steps()) {
+            BitSet enabled = chooseNextTest();
+            if (!step.enabled().equals(enabled)) {
+                Log.warn("Session doesn't match the search after %d steps, continuing from there".formatted(steps.size()));
+                break;
+            }
+            if (strategy.trustsAnswers()) {
+                results.put(enabled, step.successful());
+            }
+            strategy.consume(state, testingMods, step.successful());
+            publish(new SearchEvent.ResultRecorded(iterations + 1, step.successful(), true, candidateMods.cardinality()));
+            if (step.suspects() != null) {
+                // The step is saved again, so keep what it had
+                BitSet suspects = (BitSet) step.suspects().clone();
+                suspects.and(candidateMods);
+                if (!suspects.isEmpty()) {
+                    strategy.hint(state, suspects);
+                }
+            }
+            steps.add(step);
             iterations++;
-            finished = true;
-            ui.updateLists(candidateMods, workingMods);
-            ui.updateProgress(iterations, maxIterations);
-            ui.onFinished(candidateMods);
-            enableAll(mods);
+        }
+        testingMods.clear();
+        testingDependencies.clear();
+        Log.info("Resumed after %d steps".formatted(steps.size()));
+    }
+
+    private void saveSession() {
+        ArrayList<String> forced = new ArrayList<>();
+        for (int i = forceEnabled.nextSetBit(0); i >= 0; i = forceEnabled.nextSetBit(i + 1)) {
+            forced.add(mods.get(i).mainId());
+        }
+        try {
+            new SearchSession(strategyType, jarFingerprints, forced, steps).save(modsPath.resolveSibling(SearchSession.FILE_NAME));
+        } catch (IOException e) {
+            // Only means it can't be resumed
+            Log.warn("Failed to save session", e);
+        }
+    }
+
+    private void deleteSession() {
+        try {
+            Files.deleteIfExists(modsPath.resolveSibling(SearchSession.FILE_NAME));
+        } catch (IOException e) {
+            Log.warn("Failed to delete session", e);
+        }
+    }
+
+    /**
+     * Offers to continue a saved session, if there is one for exactly these jars.
+     */
+    private void offerResume() {
+        @Nullable SearchSession session = SearchSession.load(modsPath.resolveSibling(SearchSession.FILE_NAME));
+        if (session == null || session.steps().isEmpty()) {
+            return;
+        }
+        if (!session.jars().equals(jarFingerprints)) {
+            Log.info("Mods folder changed since the saved session, ignoring it");
+            ui.asyncDisplayOption("Old session", "There's an unfinished search, but your mods have changed since then, so it can't be continued.", MessageType.INFO, new Option[]{new Option("OK", this::deleteSession)});
             return;
         }
+        ui.asyncDisplayOption("Resume search?",
+                "There's an unfinished search with %d steps done. Continue it?".formatted(session.steps().size()),
+                MessageType.NONE,
+                new Option[]{
+                        new Option("Resume", () -> {
+                            setStrategy(session.strategy());
+                            for (String id : session.forced()) {
+                                forceEnable(id);
+                            }
+                            resumeSession = session;
+                        }, options.resume()),
+                        new Option("Start over", this::deleteSession, !options.resume())
+                }
+        );
+    }
+
+    /**
+     * Runs the whole search, testing several sets at once in sandboxes instead of asking the ui. Blocks until it's
+     * finished. Only works with a staging folder, since the sandboxes link to the jars in the mods folder.
+     *
+     * @param sandboxes Where to test. See {@link Sandbox#createAll}.
+     * @throws IOException If a sandbox couldn't be set up for a test, or a test couldn't be run.
+     */
+    public void searchInParallel(List<Sandbox> sandboxes) throws IOException, InterruptedException {
+        if (switcher.touchesModsFolder()) {
+            throw new IllegalStateException("Testing in parallel needs a staging folder, so the jars stay where the sandboxes link to them");
+        }
+        if (started) {
+            throw new IllegalStateException("The search has already started");
+        }
+        started = true;
+        // Each round rules out about all but one part in (sandboxes + 1)
+        maxIterations = (int) Math.ceil(strategy.estimateSteps(mods.size()) * Math.log(2) / Math.log(sandboxes.size() + 1));
+        ExecutorService testExecutor = Executors.newFixedThreadPool(sandboxes.size(), (runnable) -> {
+            Thread thread = new Thread(runnable, "Sandbox test");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (true) {
+                if (candidateMods.isEmpty()) {
+                    ui.asyncDisplayOption("Uh-oh!", "Oops! There's no candidate mods. Get help using the help button in the main window.", MessageType.ERROR, new Option[]{new Option("OK", this::onFatalError)});
+                    return;
+                }
+                List<BitSet> proposals = strategy.proposeParallel(state, sandboxes.size());
+                if (proposals == null) {
+                    finish(new BitSet());
+                    return;
+                }
+                ArrayList<BitSet> enabledSets = new ArrayList<>(proposals.size());
+                ArrayList<BitSet> testedSets = new ArrayList<>(proposals.size());
+                boolean answeredAny = false;
+                for (BitSet proposed : proposals) {
+                    BitSet enabled = state.enabledFor(proposed);
+                    BitSet tested = (BitSet) enabled.clone();
+                    tested.and(candidateMods);
+                    publish(new SearchEvent.StepProposed(iterations + 1, tested.cardinality(), enabled.cardinality() - tested.cardinality(), candidateMods.cardinality()));
+                    @Nullable Boolean knownResult = strategy.trustsAnswers() ? results.get(enabled) : null;
+                    if (knownResult != null) {
+                        Log.debug("Already know the result of this set: " + (knownResult ? "success" : "failure"));
+                        strategy.consume(state, tested, knownResult);
+                        publish(new SearchEvent.ResultRecorded(iterations + 1, knownResult, true, candidateMods.cardinality()));
+                        answeredAny = true;
+                    }
+                    enabledSets.add(enabled);
+                    testedSets.add(tested);
+                }
+                if (answeredAny) {
+                    // The sets changed, so choose again
+                    continue;
+                }
+                iterations++;
+                ArrayList<Mod> sortedCandidates = toList(candidateMods);
+                sortedCandidates.sort(Mod.COMPARATOR);
+                ui.updateLists(sortedCandidates, toList(workingMods));
+                ui.updateProgress(iterations, maxIterations);
+                ArrayList<Future<SandboxOutcome>> tests = new ArrayList<>(proposals.size());
+                for (int i = 0; i < proposals.size(); i++) {
+                    Sandbox sandbox = sandboxes.get(i);
+                    BitSet enabled = enabledSets.get(i);
+                    tests.add(testExecutor.submit(() -> {
+                        long startNanos = System.nanoTime();
+                        sandbox.stage(enabled, mods);
+                        long stagedNanos = System.nanoTime();
+                        boolean successful = sandbox.test();
+                        return new SandboxOutcome(successful, (stagedNanos - startNanos) / 1_000_000, (System.nanoTime() - stagedNanos) / 1_000_000);
+                    }));
+                }
+                // Wait for the whole round before using any of it
+                ArrayList<SandboxOutcome> outcomes = new ArrayList<>(tests.size());
+                for (int i = 0; i < tests.size(); i++) {
+                    SandboxOutcome outcome;
+                    try {
+                        outcome = tests.get(i).get();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof IOException ioException) {
+                            throw ioException;
+                        }
+                        throw new RuntimeException("Test in " + sandboxes.get(i).getFolder() + " failed", e.getCause());
+                    }
+                    Log.debug("Test in %s: %s".formatted(sandboxes.get(i).getFolder(), outcome.successful() ? "success" : "failure"));
+                    publish(new SearchEvent.SandboxTested(iterations, i, testedSets.get(i).cardinality(), outcome.successful(), outcome.stageMillis(), outcome.testMillis()));
+                    outcomes.add(outcome);
+                }
+                applyRound(enabledSets, testedSets, outcomes);
+            }
+        } finally {
+            testExecutor.shutdownNow();
+        }
+    }
 
-        for (Mod mod : forceEnabled) {
-            enableMod(mod);
-            Main.log("Added force-enabled mod " + mod.name());
-            addDeps(mod);
+    /**
+     * Gives the strategy the results of a parallel round. The sets only share the mods every test needs, so narrowing
+     * to two failing sets would leave almost nothing. If more than one failed (more than one problem mod, or a flaky
+     * test), only the smallest failure is used, like a sequential search would only follow one.
+     *
+     * @param enabledSets Every mod enabled for each test.
+     * @param testedSets  The candidates enabled for each test.
+     * @param outcomes    How each test went.
+     */
+    private void applyRound(List<BitSet> enabledSets, List<BitSet> testedSets, List<SandboxOutcome> outcomes) {
+        int failure = -1;
+        int failures = 0;
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (!outcomes.get(i).successful()) {
+                failures++;
+                if (failure == -1 || testedSets.get(i).cardinality() < testedSets.get(failure).cardinality()) {
+                    failure = i;
+                }
+            }
         }
-        // Enable mods we're using
-        enableAll(testingMods);
-        enableAll(testingDependencies);
-        ui.sendNextStepInstructions();
-        ui.onBisectFinished();
-        Main.log("Bottom of bisect");
+        if (failures > 1) {
+            Log.info("%d sets failed at once, so either more than one mod causes the problem or a test was flaky. Only following the smallest.".formatted(failures));
+        }
+        // Successes first, so they're ruled out of the failure too
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i).successful()) {
+                recordResult(enabledSets.get(i), testedSets.get(i), true);
+            }
+        }
+        if (failure != -1) {
+            recordResult(enabledSets.get(failure), testedSets.get(failure), false);
+        }
+    }
+
+    private void recordResult(BitSet enabled, BitSet tested, boolean successful) {
+        if (strategy.trustsAnswers()) {
+            results.put(enabled, successful);
+        }
+        strategy.consume(state, tested, successful);
+        publish(new SearchEvent.ResultRecorded(iterations, successful, false, candidateMods.cardinality()));
+    }
+
+    /**
+     * @param stageMillis How long linking the mods into the sandbox took.
+     * @param testMillis  How long the test took.
+     */
+    private record SandboxOutcome(boolean successful, long stageMillis, long testMillis) {
+    }
+
+    /**
+     * Tells the strategy about the mods a crash named, so it can test them first.
+     *
+     * @return The suspects the strategy was told about, or {@code null} if there weren't any.
+     */
+    private @Nullable BitSet hintFromCrash(CrashSignature crash) {
+        Log.debug("Crash: " + crash);
+        BitSet suspects = new BitSet();
+        for (String modId : crash.getModIds()) {
+            int provider = graph.providerOf(modId);
+            if (provider != -1) {
+                suspects.set(provider);
+            }
+        }
+        Set<String> jarNames = crash.getJarNames();
+        for (int i = 0; i < mods.size(); i++) {
+            if (jarNames.contains(mods.get(i).jarName())) {
+                suspects.set(i);
+            }
+        }
+        suspects.and(candidateMods);
+        if (suspects.isEmpty()) {
+            return null;
+        }
+        ui.sendInstructions("The crash mentions %s, so those will be tested first.".formatted(String.join(", ", toList(suspects).stream().map(Mod::name).toList())));
+        strategy.hint(state, suspects);
+        return suspects;
+    }
+
+    /**
+     * Starts collecting a {@link CrashSignature} from the folder the game runs in.
+     */
+    private void startWatching() {
+        stopWatching();
+        CrashSignature signature = new CrashSignature();
+        try {
+            logWatcher = LogWatcher.forGameFolder(switcher.folder().toAbsolutePath().getParent(), signature::accept);
+            crashSignature = signature;
+        } catch (IOException e) {
+            // Just means no hints
+            Log.warn("Couldn't watch the logs", e);
+        }
+    }
+
+    /**
+     * @return What was collected since {@link SearchHandler#startWatching()}, or {@code null} if nothing was watching.
+     */
+    private @Nullable CrashSignature stopWatching() {
+        if (logWatcher != null) {
+            try {
+                logWatcher.close();
+            } catch (IOException e) {
+                Log.warn("Couldn't stop watching the logs");
+            }
+            logWatcher = null;
+        }
+        CrashSignature signature = crashSignature;
+        crashSignature = null;
+        return signature;
+    }
+
+    /**
+     * @param modSet Indices of mods.
+     * @return A new list of the mods, in index order.
+     */
+    private ArrayList<Mod> toList(BitSet modSet) {
+        ArrayList<Mod> list = new ArrayList<>(modSet.cardinality());
+        for (int i = modSet.nextSetBit(0); i >= 0; i = modSet.nextSetBit(i + 1)) {
+            list.add(mods.get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Disables and then enables mods as one batch, written to the {@link RenameJournal} before anything is renamed.
+     * Only mods that actually change are renamed, and the folder is checked afterward.
+     *
+     * @param toDisable Indices of mods to disable.
+     * @param toEnable  Indices of mods to enable. Enabled after disabling, so a mod in both ends up enabled.
+     */
+    private void applyRenames(BitSet toDisable, BitSet toEnable) {
+        BitSet disabling = (BitSet) toDisable.clone();
+        disabling.andNot(toEnable);
+        disabling.and(enabledMods);
+        BitSet enabling = (BitSet) toEnable.clone();
+        enabling.andNot(enabledMods);
+        Log.debug("Renaming " + (disabling.cardinality() + enabling.cardinality()) + " jars");
+        long startNanos = System.nanoTime();
+        int batch = -1;
+        if (journal != null) {
+            try {
+                batch = journal.beginBatch(jarNames(disabling), jarNames(enabling));
+            } catch (IOException e) {
+                // Still safe if we exit normally, thanks to the shutdown hook
+                Log.warn("Failed to write rename journal", e);
+            }
+        }
+        try {
+            switcher.beforeEnabling(toList(enabling));
+        } catch (IOException e) {
+            // Each jar is set up on its own instead
+            Log.warn("Failed to set up enabling", e);
+        }
+        renameAll(disabling, enabling);
+        try {
+            switcher.afterDisabling();
+        } catch (IOException e) {
+            Log.warn("Failed to clean up after disabling", e);
+        }
+        if (journal != null && batch != -1) {
+            try {
+                journal.finishBatch(batch);
+            } catch (IOException e) {
+                Log.warn("Failed to write rename journal", e);
+            }
+        }
+        checkFolder();
+        publish(new SearchEvent.SetApplied(enabledMods.cardinality(), disabling.cardinality() + enabling.cardinality(), (System.nanoTime() - startNanos) / 1_000_000));
+    }
+
+    /**
+     * Makes sure every jar in the folder is enabled or disabled like we think it is, and fixes any that aren't.
+     * Lists the folder once, instead of checking each jar. A jar that's gone completely is a fatal error.
+     */
+    private void checkFolder() {
+        String[] fileNames = switcher.folder().toFile().list();
+        if (fileNames == null) {
+            Log.warn("Couldn't list the mods folder to check it");
+            return;
+        }
+        HashSet<String> files = new HashSet<>(Arrays.asList(fileNames));
+        for (int i = 0; i < mods.size(); i++) {
+            Mod mod = mods.get(i);
+            @Nullable Boolean enabled = switcher.isEnabled(files, mod);
+            if (enabled == null) {
+                reportMissing(mod);
+                return;
+            }
+            if (enabledMods.get(i) && !enabled) {
+                Log.warn(mod.jarName() + " should be enabled, but isn't");
+                enableMod(mod);
+            } else if (!enabledMods.get(i) && enabled) {
+                Log.warn(mod.jarName() + " should be disabled, but isn't");
+                disableMod(mod);
+            }
+        }
+    }
+
+    /**
+     * @return If the mod's jar is gone from the folder completely, so switching it can never work.
+     */
+    private boolean isMissing(Mod mod) {
+        String[] fileNames = switcher.folder().toFile().list();
+        return fileNames != null && switcher.isEnabled(new HashSet<>(Arrays.asList(fileNames)), mod) == null;
+    }
+
+    /**
+     * Renaming can't bring a missing jar back, and asking to try again would never end, so give up.
+     */
+    private void reportMissing(Mod mod) {
+        Log.warn(mod.jarName() + " is missing");
+        ui.asyncDisplayOption("Missing mod", "\"%s\" isn't in the mods folder anymore. Make sure nothing else is changing your mods and try again.".formatted(mod.jarName()), MessageType.ERROR, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
     }
 
-    private void disableAll(ArrayList<Mod> mods) {
-        for (Mod testingMod : mods) {
-            disableMod(testingMod);
+    /**
+     * Renames jars a few at a time. Any that fail are tried again one at a time, asking the user.
+     *
+     * @param disabling Indices of mods to disable.
+     * @param enabling  Indices of mods to enable.
+     */
+    private void renameAll(BitSet disabling, BitSet enabling) {
+        if (disabling.cardinality() + enabling.cardinality() <= 1) {
+            disableAll(disabling);
+            enableAll(enabling);
+            return;
+        }
+        ArrayList<Future<Boolean>> disables = new ArrayList<>(disabling.cardinality());
+        for (int i = disabling.nextSetBit(0); i >= 0; i = disabling.nextSetBit(i + 1)) {
+            Mod mod = mods.get(i);
+            disables.add(renameExecutor.submit(() -> switcher.tryDisable(mod)));
+        }
+        ArrayList<Future<Boolean>> enables = new ArrayList<>(enabling.cardinality());
+        for (int i = enabling.nextSetBit(0); i >= 0; i = enabling.nextSetBit(i + 1)) {
+            Mod mod = mods.get(i);
+            enables.add(renameExecutor.submit(() -> switcher.tryEnable(mod)));
+        }
+        BitSet failedDisables = failedRenames(disabling, disables);
+        BitSet failedEnables = failedRenames(enabling, enables);
+        enabledMods.andNot(disabling);
+        enabledMods.or(enabling);
+        disableAll(failedDisables);
+        enableAll(failedEnables);
+    }
+
+    /**
+     * @param renaming Indices of mods being renamed.
+     * @param renames  The renames, in index order.
+     * @return Indices of the mods that weren't renamed.
+     */
+    private BitSet failedRenames(BitSet renaming, List<Future<Boolean>> renames) {
+        BitSet failed = new BitSet();
+        int rename = 0;
+        for (int i = renaming.nextSetBit(0); i >= 0; i = renaming.nextSetBit(i + 1)) {
+            boolean renamed;
+            try {
+                renamed = renames.get(rename++).get();
+            } catch (ExecutionException e) {
+                renamed = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                renamed = false;
+            }
+            if (!renamed) {
+                failed.set(i);
+            }
+        }
+        return failed;
+    }
+
+    private List<String> jarNames(BitSet modSet) {
+        ArrayList<String> names = new ArrayList<>(modSet.cardinality());
+        for (int i = modSet.nextSetBit(0); i >= 0; i = modSet.nextSetBit(i + 1)) {
+            names.add(mods.get(i).jarName());
+        }
+        return names;
+    }
+
+    private void disableAll(BitSet modSet) {
+        for (int i = modSet.nextSetBit(0); i >= 0; i = modSet.nextSetBit(i + 1)) {
+            disableMod(mods.get(i));
         }
     }
 
     private void disableMod(Mod mod) {
         assert modsPath != null;
-        while (!mod.tryDisable(modsPath)) {
+        enabledMods.clear(graph.indexOf(mod));
+        while (!switcher.tryDisable(mod)) {
+            if (isMissing(mod)) {
+                reportMissing(mod);
+                return;
+            }
             try {
                 ui.asyncDisplayOption("Disable failed", "Couldn't disable \"%s\". Make sure Minecraft is closed.".formatted(mod.name()), MessageType.WARNING, new Option[]{
-                        new Option("Abort", this::onFatalError),
+                        new Option("Abort", this::onFatalError, true),
                         new Option("Try again", null)
                 }).get();
             } catch (ExecutionException | InterruptedException e) {
@@ -273,66 +799,200 @@ public class SearchHandler {
 
     private void discoverMods() {
         // If something here goes wrong, the user should end up being forced to quit.
-        Main.log("Discovering mods");
+        Log.info("Discovering mods");
+        long startNanos = System.nanoTime();
+        publish(new SearchEvent.DiscoveryStarted(modsPath));
         try {
             Mod.loadDependencyOverrides(modsPath.getParent().resolve("config").resolve("fabric_loader_dependencies.json").toFile());
         } catch (IOException e) {
-            Main.log("Failed to load dependency overrides.");
-            Main.log(e.getMessage());
+            Log.warn("Failed to load dependency overrides", e);
             ui.asyncDisplayOption("Dep override failure", "Could not load dependency overrides", MessageType.INFO, DO_NOTHING_OPTION);
             return;
         }
+        // Put back anything a search that was killed left disabled, before looking for jars
+        Path journalFile = modsPath.resolveSibling(RenameJournal.FILE_NAME);
+        try {
+            List<String> recovered = RenameJournal.recover(journalFile, modsPath);
+            if (!recovered.isEmpty()) {
+                ui.asyncDisplayOption("Recovered mods", "The last search didn't finish, so %d mods it disabled were enabled again.".formatted(recovered.size()), MessageType.INFO, DO_NOTHING_OPTION);
+            }
+        } catch (IOException e) {
+            Log.warn("Failed to recover from the rename journal", e);
+            ui.asyncDisplayOption("Recovery failed", "The last search didn't finish, and some of the mods it disabled couldn't be enabled again. Make sure Minecraft is closed and try again.", MessageType.ERROR, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
+            return;
+        }
         // modsPath is initialized
         // populate mods
         File[] possibleModFiles;
         try {
             possibleModFiles = modsPath.toFile().listFiles(file -> file.getPath().endsWith(".jar"));
         } catch (SecurityException e) {
-            Main.log("Could not access file when discovering");
+            Log.warn("Could not access file when discovering");
             ui.asyncDisplayOption("Could not access file", "Could not access a file in the provided path. Make sure Minecraft is closed and try again.", MessageType.INFO, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
             return;
         }
         if (possibleModFiles == null) {
-            Main.log("Problems with possible mod files");
+            Log.warn("Problems with possible mod files");
             ui.asyncDisplayOption("Problems with possible mod files", "There were problems trying to find your mods. Make sure Minecraft is closed and try again.", MessageType.INFO, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
             return;
         }
-        for (File possibleModFile : possibleModFiles) {
-            try (JarFile jarFile = new JarFile(possibleModFile)) {
-                Mod parsedMod = parseMod(jarFile);
-                if (parsedMod != null) {
-                    mods.add(parsedMod);
+        @Nullable ModCache modCache = options.cacheMods() ? ModCache.load(modsPath.resolveSibling(ModCache.FILE_NAME), options.hashJars()) : null;
+        // listFiles doesn't promise any order, but we want the same mods list every time
+        Arrays.sort(possibleModFiles, Comparator.comparing(File::getName));
+        ExecutorService discoveryExecutor = Executors.newFixedThreadPool(DISCOVERY_THREADS, (runnable) -> {
+            Thread thread = new Thread(runnable, "Mod discovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ArrayList<Future<Mod>> parsedMods = new ArrayList<>(possibleModFiles.length);
+            for (File possibleModFile : possibleModFiles) {
+                if (modCache != null) {
+                    parsedMods.add(discoveryExecutor.submit(() -> modCache.getOrParse(possibleModFile, this::discoverMod)));
+                } else {
+                    parsedMods.add(discoveryExecutor.submit(() -> discoverMod(possibleModFile)));
                 }
+            }
+            // Collect in submission order, so the result doesn't depend on which jar finished first
+            for (Future<Mod> parsedMod : parsedMods) {
+                Mod mod = parsedMod.get();
+                if (mod != null) {
+                    mods.add(mod);
+                }
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            Log.warn("Problems trying to read mods");
+            mods.clear();
+            ui.asyncDisplayOption("Problems", "There were problems trying to read your mods.", MessageType.INFO, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
+            return;
+        } finally {
+            discoveryExecutor.shutdownNow();
+        }
+        if (modCache != null) {
+            try {
+                modCache.save();
             } catch (IOException e) {
-                Main.log("Problems trying to read mods");
-                mods.clear();
-                ui.asyncDisplayOption("Problems", "There were problems trying to read your mods.", MessageType.INFO, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
-                return;
+                // Not a big deal, it'll just be slower next time
+                Log.warn("Failed to save mod cache", e);
             }
         }
-        candidateMods.addAll(mods);
+        candidateMods.set(0, mods.size());
         if (candidateMods.isEmpty()) {
-            Main.log("No mods found");
+            Log.warn("No mods found");
             ui.asyncDisplayOption("Can't find mods", "Couldn't find any mods. Make sure you've got the right folder, and you have Fabric mods in it.", MessageType.INFO, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
             return;
         }
 
-        disableAll(mods);
-        maxIterations = (int) Math.ceil(Math.log10(mods.size()) / Math.log10(2.0d));
-    }
+        graph = new DependencyGraph(mods);
+        state = new SearchState(graph, candidateMods, workingMods, forceEnabled);
+        if (!graph.getMissingDependencies().isEmpty()) {
+            ui.asyncDisplayOption("Missing dependency",
+                    "You seem to be missing some dependencies - %s. Fabric should've told you this. If I'm wrong, report this.".formatted(String.join(", ", graph.getMissingDependencies())),
+                    MessageType.WARNING,
+                    new Option[]{new Option("OK", null, true), new Option("Abort", this::onFatalError)}
+            );
+            Log.warn("Missing a dependency");
+        }
+        ArrayList<String> unknownIds = new ArrayList<>();
+        for (String id : options.forceEnabled()) {
+            if (!forceEnable(id) && mods.stream().noneMatch((mod) -> mod.mainId().equals(id))) {
+                unknownIds.add(id);
+            }
+        }
+        if (!unknownIds.isEmpty()) {
+            ui.asyncDisplayOption("Unknown mods",
+                    "Couldn't force-enable %s, since no mod has that id.".formatted(String.join(", ", unknownIds)),
+                    MessageType.WARNING,
+                    new Option[]{new Option("OK", null, true), new Option("Abort", this::onFatalError)}
+            );
+        }
 
-    private void enableAll(ArrayList<Mod> mods) {
+        // Before anything is renamed, so the names are the enabled ones
+        ArrayList<SearchSession.JarFingerprint> fingerprints = new ArrayList<>(mods.size());
         for (Mod mod : mods) {
-            enableMod(mod);
+            fingerprints.add(SearchSession.JarFingerprint.of(modsPath.resolve(mod.jarName()).toFile()));
+        }
+        jarFingerprints = fingerprints;
+
+        BitSet allMods = new BitSet();
+        allMods.set(0, mods.size());
+        if (switcher instanceof StagingSwitcher stagingSwitcher) {
+            // Nothing is linked yet, and the mods folder stays the way it is
+            try {
+                List<String> strangers = stagingSwitcher.prepare(mods);
+                List<String> clashing = strangers.stream().filter((jarName) -> mods.stream().anyMatch((mod) -> mod.jarName().equals(jarName))).toList();
+                if (!clashing.isEmpty()) {
+                    // The search can't switch these mods without deleting jars it didn't make
+                    ui.asyncDisplayOption("Other jars in staging folder",
+                            "The staging folder has jars with the same names as your mods that weren't put there by the search - %s. Move them out of the staging folder and try again.".formatted(String.join(", ", clashing)),
+                            MessageType.ERROR,
+                            new Option[]{new Option("That's not good, I'll try again", this::onFatalError)}
+                    );
+                    return;
+                }
+                if (!strangers.isEmpty()) {
+                    ui.asyncDisplayOption("Other jars in staging folder",
+                            "The staging folder has jars that aren't in your mods folder - %s. They'll be loaded in every test.".formatted(String.join(", ", strangers)),
+                            MessageType.WARNING,
+                            new Option[]{new Option("OK", null, true), new Option("Abort", this::onFatalError)}
+                    );
+                }
+            } catch (IOException e) {
+                Log.warn("Failed to prepare staging folder", e);
+                ui.asyncDisplayOption("Staging folder failure", "Couldn't set up the staging folder. Make sure Minecraft is closed and try again.", MessageType.ERROR, new Option[]{new Option("That's not good, I'll try again", this::onFatalError)});
+                return;
+            }
+        } else {
+            try {
+                journal = RenameJournal.create(journalFile);
+            } catch (IOException e) {
+                // Still safe if we exit normally, thanks to the shutdown hook
+                Log.warn("Failed to make rename journal", e);
+            }
+            // Every jar we found was enabled
+            enabledMods.or(allMods);
+        }
+        applyRenames(allMods, new BitSet());
+        maxIterations = strategy.estimateSteps(mods.size());
+        publish(new SearchEvent.DiscoveryFinished(possibleModFiles.length, mods.size(), graph.unitCount(), (System.nanoTime() - startNanos) / 1_000_000));
+        offerResume();
+    }
+
+    /**
+     * Reads a single jar. Safe to call from multiple threads at once.
+     *
+     * @return The parsed mod, or {@code null} if the jar isn't a Fabric mod.
+     */
+    private @Nullable Mod discoverMod(File modFile) throws IOException {
+        try (ModJarReader jar = options.jarReader().open(modFile)) {
+            return parseMod(jar);
+        }
+    }
+
+    private void enableAll(BitSet modSet) {
+        for (int i = modSet.nextSetBit(0); i >= 0; i = modSet.nextSetBit(i + 1)) {
+            enableMod(mods.get(i));
         }
     }
 
     private void enableMod(Mod mod) {
         assert modsPath != null;
-        while (!mod.tryEnable(modsPath)) {
+        enabledMods.set(graph.indexOf(mod));
+        while (!switcher.tryEnable(mod)) {
+            if (isMissing(mod)) {
+                reportMissing(mod);
+                return;
+            }
             try {
                 ui.asyncDisplayOption("Enable failed", "Couldn't enable \"%s\". Make sure Minecraft is closed.".formatted(mod.name()), MessageType.WARNING, new Option[]{
-                        new Option("Abort", this::onFatalError),
+                        new Option("Abort", this::onFatalError, true),
                         new Option("Try again", null)
                 }).get();
             } catch (ExecutionException | InterruptedException e) {
@@ -341,6 +1001,24 @@ public class SearchHandler {
         }
     }
 
+    /**
+     * @param previouslyEnabled Indices of the mods enabled for the last test.
+     */
+    private void finish(BitSet previouslyEnabled) {
+        iterations++;
+        BitSet allMods = new BitSet();
+        allMods.set(0, mods.size());
+        applyRenames(previouslyEnabled, allMods);
+        finished = true;
+        deleteJournal();
+        deleteSession();
+        ArrayList<Mod> problematicMods = toList(candidateMods);
+        publish(new SearchEvent.Finished(problematicMods.stream().map(Mod::mainId).toList(), iterations));
+        ui.updateLists(problematicMods, toList(workingMods));
+        ui.updateProgress(iterations, maxIterations);
+        ui.onFinished(problematicMods);
+    }
+
     public ArrayList<Mod> getMods() {
         return mods;
     }
@@ -349,103 +1027,146 @@ public class SearchHandler {
      * Call after the error has been acknowledged by a button press.
      */
     public void onFatalError() {
-        mods.forEach((mod) -> {
-            assert modsPath != null;
-            mod.tryEnable(modsPath);
-        });
+        tryEnableAllAndDeleteJournal();
         System.exit(1);
     }
 
+    private void deleteJournal() {
+        if (journal != null) {
+            try {
+                journal.delete();
+            } catch (IOException e) {
+                Log.warn("Failed to delete rename journal", e);
+            }
+            journal = null;
+        }
+    }
+
+    /**
+     * Enables every mod, and if that worked, deletes the journal. Otherwise, the journal is kept for next time.
+     */
+    private synchronized void tryEnableAllAndDeleteJournal() {
+        assert modsPath != null;
+        try {
+            switcher.beforeEnabling(mods);
+        } catch (IOException e) {
+            Log.warn("Failed to set up enabling", e);
+        }
+        boolean allEnabled = true;
+        for (Mod mod : mods) {
+            allEnabled &= switcher.tryEnable(mod);
+        }
+        if (allEnabled) {
+            deleteJournal();
+        }
+    }
+
+    /**
+     * @return A new list of the working mods.
+     */
     public ArrayList<Mod> getWorkingMods() {
-        return workingMods;
+        return toList(workingMods);
     }
 
+    /**
+     * @return A new list of the mods being tested.
+     */
     public ArrayList<Mod> getTestingMods() {
-        return testingMods;
+        return toList(testingMods);
     }
 
+    /**
+     * @return A new list of the candidate mods.
+     */
     public ArrayList<Mod> getCandidateMods() {
-        return candidateMods;
+        return toList(candidateMods);
     }
 
-    private @Nullable Mod parseMod(JarFile jarFile) throws IOException {
-        Main.log("Parsing mod");
-        JarEntry fmj = jarFile.getJarEntry("fabric.mod.json");
-        Main.log("Found fmj");
-        if (fmj == null) { // No fmj
-            return null;
+    /**
+     * @param jar The jar to parse.
+     * @return The mod in the jar, or {@code null} if it isn't a mod.
+     */
+    private @Nullable Mod parseMod(ModJarReader jar) throws IOException {
+        Log.trace("Parsing mod");
+        JsonObject fmjJson;
+        Log.trace("Making input stream");
+        try (InputStream inputStream = jar.getEntry("fabric.mod.json")) {
+            if (inputStream == null) { // No fmj
+                return null;
+            }
+            Log.trace("Found fmj");
+            fmjJson = JsonParser.parseReader(new InputStreamReader(inputStream)).getAsJsonObject();
         }
-        Main.log("Making input stream");
-        // jarIs is at the beginning of the fmj
-        try (InputStream inputStream = jarFile.getInputStream(fmj)) {
-            Main.log("Input stream made");
-            JsonObject fmjJson = JsonParser.parseReader(new InputStreamReader(inputStream)).getAsJsonObject();
-            // Name
-            Main.log("Getting name...");
-            JsonElement nameElement = fmjJson.get("name");
-            String name = null;
-            if (nameElement != null) {
-                name = nameElement.getAsString();
-            }
-
-            // Ids
-            Main.log("Getting ids...");
-            String mainId = fmjJson.get("id").getAsString();
-            if (name == null) {
-                name = mainId;
-            }
-            Set<String> ids = new HashSet<>();
-            ids.add(mainId);
-            JsonElement provides = fmjJson.get("provides");
-            if (provides != null) {
-                provides.getAsJsonArray().forEach((element) -> ids.add(element.getAsString()));
-            }
-
-            // Deps
-            Main.log("Getting deps...");
-            JsonElement dependsElement = fmjJson.get("depends");
-            HashSet<String> dependencies;
-            if (dependsElement != null) {
-                dependencies = new HashSet<>(dependsElement.getAsJsonObject().keySet());
-            } else {
-                dependencies = new HashSet<>();
-            }
-
-            // Filename
-            Main.log("Getting file name...");
-            String fileName = jarFile.getName();
-            int extensionIndex = fileName.lastIndexOf(".jar");
-            if (extensionIndex == -1) {
-                ui.asyncDisplayOption("Say what now?", "Couldn't find .jar extension for the jar that definitely had a .jar extension. Wot?", MessageType.ERROR, DO_NOTHING_OPTION);
-                throw new IOException("Couldn't find .jar extension for the jar that definitely had a .jar extension. Wot?");
-            }
-
-            // JIJs
-            Main.log("Getting JIJs");
-            JsonElement jars = fmjJson.get("jars");
-            if (jars != null) {
-                for (JsonElement element : jars.getAsJsonArray()) {
-                    String jijPath = element.getAsJsonObject().get("file").getAsString();
-                    File tempFile = Files.createTempFile("skycatdevbinarysearchtool", ".jar").toFile();
-                    tempFile.deleteOnExit();
-                    try (FileOutputStream tempFileOutputStream = new FileOutputStream(tempFile)) {
-                        jarFile.getInputStream(jarFile.getJarEntry(jijPath)).transferTo(tempFileOutputStream);
+        // Name
+        Log.trace("Getting name...");
+        JsonElement nameElement = fmjJson.get("name");
+        String name = null;
+        if (nameElement != null) {
+            name = nameElement.getAsString();
+        }
+
+        // Ids
+        Log.trace("Getting ids...");
+        String mainId = fmjJson.get("id").getAsString();
+        if (name == null) {
+            name = mainId;
+        }
+        Set<String> ids = new HashSet<>();
+        ids.add(mainId);
+        JsonElement provides = fmjJson.get("provides");
+        if (provides != null) {
+            provides.getAsJsonArray().forEach((element) -> ids.add(element.getAsString()));
+        }
+
+        // Deps
+        Log.trace("Getting deps...");
+        JsonElement dependsElement = fmjJson.get("depends");
+        HashSet<String> dependencies;
+        if (dependsElement != null) {
+            dependencies = new HashSet<>(dependsElement.getAsJsonObject().keySet());
+        } else {
+            dependencies = new HashSet<>();
+        }
+
+        // Filename
+        Log.trace("Getting file name...");
+        String fileName = jar.getName();
+        int extensionIndex = fileName.lastIndexOf(".jar");
+        if (extensionIndex == -1) {
+            ui.asyncDisplayOption("Say what now?", "Couldn't find .jar extension for the jar that definitely had a .jar extension. Wot?", MessageType.ERROR, DO_NOTHING_OPTION);
+            throw new IOException("Couldn't find .jar extension for the jar that definitely had a .jar extension. Wot?");
+        }
+
+        // JIJs
+        Log.trace("Getting JIJs");
+        JsonElement jars = fmjJson.get("jars");
+        if (jars != null) {
+            for (JsonElement element : jars.getAsJsonArray()) {
+                String jijPath = element.getAsJsonObject().get("file").getAsString();
+                Mod jij;
+                try (InputStream jijStream = jar.getEntry(jijPath)) {
+                    if (jijStream == null) {
+                        Log.debug(() -> "Missing JIJ " + jijPath);
+                        continue;
                     }
-                    Mod jij = parseMod(new JarFile(tempFile));
-                    if (jij != null) {
-                        ids.addAll(jij.ids());
-                        dependencies.addAll(jij.dependencies());
+                    // Nested jars are read from memory, including the ones nested inside of those
+                    try (ModJarReader nestedJar = NestedJarReader.read(jijStream, jijPath)) {
+                        jij = parseMod(nestedJar);
                     }
                 }
+                if (jij != null) {
+                    ids.addAll(jij.ids());
+                    dependencies.addAll(jij.dependencies());
+                }
             }
-            /*
-            Ignore all deps that are provided by itself. For example, modules in Fabric API depend on other modules in Fabric API.
-            These deps of deps collect up, making Fabric API have many dependencies, despite all of them being supplied by itself.
-            This line fixes that.
-             */
-            dependencies.removeAll(ids);
-
-            return new Mod(name, mainId, ids, dependencies, fileName.substring(0, extensionIndex));
         }
+        /*
+        Ignore all deps that are provided by itself. For example, modules in Fabric API depend on other modules in Fabric API.
+        These deps of deps collect up, making Fabric API have many dependencies, despite all of them being supplied by itself.
+        This line fixes that.
+         */
+        dependencies.removeAll(ids);
+
+        return new Mod(name, mainId, ids, dependencies, fileName.substring(0, extensionIndex));
     }
 }
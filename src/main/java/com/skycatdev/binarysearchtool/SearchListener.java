@@ -0,0 +1,10 @@
+package com.skycatdev.binarysearchtool;
+
+/**
+ * Gets told about everything that happens during a search. Called on whatever thread the search is running on, so it
+ * should return quickly.
+ */
+@FunctionalInterface
+public interface SearchListener {
+    void onEvent(SearchEvent event);
+}
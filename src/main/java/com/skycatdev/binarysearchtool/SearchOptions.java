@@ -0,0 +1,163 @@
+package com.skycatdev.binarysearchtool;
+
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for a search that aren't the mods folder or the ui. The defaults are what you get without asking.
+ */
+public class SearchOptions {
+    private boolean cacheMods = true;
+    private boolean hashJars = false;
+    private ModJarReader.Type jarReader = ModJarReader.Type.getDefault();
+    private SearchStrategy.Type strategy = SearchStrategy.Type.BISECT;
+    private double reproduceChance = 0.7;
+    private double falseAlarmChance = 0.02;
+    private double confidence = 0.95;
+    private @Nullable Path stagingFolder = null;
+    private List<String> forceEnabled = List.of();
+    private boolean resume = false;
+    private final ArrayList<SearchListener> listeners = new ArrayList<>();
+
+    /**
+     * @return If mod metadata should be remembered between runs in a {@link ModCache}.
+     */
+    public boolean cacheMods() {
+        return cacheMods;
+    }
+
+    public SearchOptions cacheMods(boolean cacheMods) {
+        this.cacheMods = cacheMods;
+        return this;
+    }
+
+    /**
+     * @return If the {@link ModCache} should also check file contents, not just size and last-modified time.
+     * Slower, but it survives tools that touch files without changing them.
+     */
+    public boolean hashJars() {
+        return hashJars;
+    }
+
+    public SearchOptions hashJars(boolean hashJars) {
+        this.hashJars = hashJars;
+        return this;
+    }
+
+    /**
+     * @return How to read jars when discovering mods.
+     */
+    public ModJarReader.Type jarReader() {
+        return jarReader;
+    }
+
+    public SearchOptions jarReader(ModJarReader.Type jarReader) {
+        this.jarReader = jarReader;
+        return this;
+    }
+
+    /**
+     * @return How to choose what to test.
+     */
+    public SearchStrategy.Type strategy() {
+        return strategy;
+    }
+
+    public SearchOptions strategy(SearchStrategy.Type strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
+    /**
+     * @return For {@link SearchStrategy.Type#PROBABILISTIC}, the chance the problem shows up when the problem mod is
+     * enabled.
+     */
+    public double reproduceChance() {
+        return reproduceChance;
+    }
+
+    public SearchOptions reproduceChance(double reproduceChance) {
+        this.reproduceChance = reproduceChance;
+        return this;
+    }
+
+    /**
+     * @return For {@link SearchStrategy.Type#PROBABILISTIC}, the chance the problem seems to show up when the problem
+     * mod isn't enabled (or a wrong answer is given).
+     */
+    public double falseAlarmChance() {
+        return falseAlarmChance;
+    }
+
+    public SearchOptions falseAlarmChance(double falseAlarmChance) {
+        this.falseAlarmChance = falseAlarmChance;
+        return this;
+    }
+
+    /**
+     * @return For {@link SearchStrategy.Type#PROBABILISTIC}, how likely a mod has to be before it's called the problem.
+     */
+    public double confidence() {
+        return confidence;
+    }
+
+    public SearchOptions confidence(double confidence) {
+        this.confidence = confidence;
+        return this;
+    }
+
+    /**
+     * @return A folder to link enabled mods into for tests, or {@code null} to rename jars in the mods folder instead.
+     * With a staging folder, the mods folder is never changed, but the game has to load mods from the staging folder.
+     * It can't be the mods folder, or inside it.
+     */
+    public @Nullable Path stagingFolder() {
+        return stagingFolder;
+    }
+
+    public SearchOptions stagingFolder(@Nullable Path stagingFolder) {
+        this.stagingFolder = stagingFolder;
+        return this;
+    }
+
+    /**
+     * @return The ids of mods to force-enable once they're discovered.
+     */
+    public List<String> forceEnabled() {
+        return forceEnabled;
+    }
+
+    public SearchOptions forceEnabled(List<String> forceEnabled) {
+        this.forceEnabled = List.copyOf(forceEnabled);
+        return this;
+    }
+
+    /**
+     * @return If an unfinished search of the same jars should be continued when nobody is there to answer. Otherwise,
+     * it's started over. The user is always asked if they're there.
+     */
+    public boolean resume() {
+        return resume;
+    }
+
+    public SearchOptions resume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    /**
+     * @return Listeners to tell about the search from the very start, including discovery.
+     */
+    public List<SearchListener> listeners() {
+        return listeners;
+    }
+
+    public SearchOptions listener(SearchListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+}
@@ -0,0 +1,76 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The result of a search without anyone there, for scripts to read.
+ *
+ * @param problematicMods The mods the problem comes from.
+ * @param steps           Every test that was run, in order.
+ * @param totalMillis     How long the whole search took, including discovery.
+ */
+public record SearchReport(List<Mod> problematicMods, List<Step> steps, long totalMillis) {
+    public JsonObject toJson() {
+        JsonArray modsJson = new JsonArray();
+        for (Mod mod : problematicMods) {
+            JsonObject modJson = new JsonObject();
+            modJson.addProperty("id", mod.mainId());
+            modJson.addProperty("name", mod.name());
+            modJson.addProperty("jar", mod.jarName());
+            modsJson.add(modJson);
+        }
+        JsonArray stepsJson = new JsonArray();
+        for (Step step : steps) {
+            JsonObject stepJson = new JsonObject();
+            stepJson.addProperty("step", step.number());
+            stepJson.addProperty("round", step.round());
+            if (step.sandbox() != null) {
+                stepJson.addProperty("sandbox", step.sandbox());
+            }
+            stepJson.addProperty("testing", step.testing());
+            stepJson.addProperty("successful", step.successful());
+            stepJson.addProperty("prepareMillis", step.prepareMillis());
+            stepJson.addProperty("testMillis", step.testMillis());
+            stepsJson.add(stepJson);
+        }
+        JsonObject json = new JsonObject();
+        json.add("problematicMods", modsJson);
+        json.add("steps", stepsJson);
+        json.addProperty("totalMillis", totalMillis);
+        return json;
+    }
+
+    /**
+     * @param file Where to write the report, or {@code null} for standard output.
+     */
+    public void write(@Nullable Path file) throws IOException {
+        String json = new GsonBuilder().setPrettyPrinting().create().toJson(toJson());
+        if (file == null) {
+            System.out.println(json);
+            System.out.flush();
+        } else {
+            Files.writeString(file, json + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @param number        The step number, starting at 1.
+     * @param round         Which round of tests this was in. The same as the number, unless testing in parallel.
+     * @param sandbox       Which sandbox it was tested in, starting at 0, or {@code null} if not testing in parallel.
+     * @param testing       How many candidates were tested.
+     * @param successful    If the problem was gone.
+     * @param prepareMillis How long choosing and enabling the mods took. In parallel, only linking them.
+     * @param testMillis    How long the test took.
+     */
+    public record Step(int number, int round, @Nullable Integer sandbox, int testing, boolean successful, long prepareMillis, long testMillis) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.skycatdev.binarysearchtool;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Everything needed to pick an unfinished search back up: which jars it was for, how it searched, and the answer to
+ * every step. Strategies are deterministic, so giving them the same answers again puts the search exactly where it
+ * was. Sets are stored as base64 {@link BitSet}s, indexed like {@link SearchHandler#getMods()}.
+ *
+ * @param strategy The kind of strategy that was used.
+ * @param jars     The jars of every mod, in index order, to check that the mods folder hasn't changed.
+ * @param forced   The main ids of force-enabled mods.
+ * @param steps    Every answered step, in order.
+ */
+public record SearchSession(SearchStrategy.Type strategy, List<JarFingerprint> jars, List<String> forced, List<Step> steps) {
+    /**
+     * Bump this when the file format changes. Sessions with another version can't be resumed.
+     */
+    public static final int VERSION = 1;
+    public static final String FILE_NAME = "binarysearchtool_session.json";
+
+    private static BitSet decode(String encoded) {
+        return BitSet.valueOf(Base64.getDecoder().decode(encoded));
+    }
+
+    private static String encode(BitSet bitSet) {
+        return Base64.getEncoder().encodeToString(bitSet.toByteArray());
+    }
+
+    /**
+     * @return The session, or {@code null} if there isn't one or it can't be read.
+     */
+    public static @Nullable SearchSession load(Path sessionFile) {
+        if (!Files.exists(sessionFile)) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(sessionFile, StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+            if (json.get("version").getAsInt() != VERSION) {
+                Log.info("Session is from another version, ignoring it");
+                return null;
+            }
+            ArrayList<JarFingerprint> jars = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray("jars")) {
+                JsonObject jar = element.getAsJsonObject();
+                jars.add(new JarFingerprint(jar.get("name").getAsString(), jar.get("size").getAsLong(), jar.get("modified").getAsLong()));
+            }
+            ArrayList<String> forced = new ArrayList<>();
+            json.getAsJsonArray("forced").forEach((id) -> forced.add(id.getAsString()));
+            ArrayList<Step> steps = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray("steps")) {
+                JsonObject step = element.getAsJsonObject();
+                steps.add(new Step(decode(step.get("enabled").getAsString()),
+                        step.get("successful").getAsBoolean(),
+                        step.has("suspects") ? decode(step.get("suspects").getAsString()) : null));
+            }
+            return new SearchSession(SearchStrategy.Type.valueOf(json.get("strategy").getAsString()), jars, forced, steps);
+        } catch (IOException | JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+            Log.warn("Could not read session, ignoring it", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the session to a temporary file and then moves it into place, so a crash never leaves half a session.
+     */
+    public void save(Path sessionFile) throws IOException {
+        JsonArray jarsJson = new JsonArray();
+        for (JarFingerprint jar : jars) {
+            JsonObject jarJson = new JsonObject();
+            jarJson.addProperty("name", jar.name());
+            jarJson.addProperty("size", jar.size());
+            jarJson.addProperty("modified", jar.modified());
+            jarsJson.add(jarJson);
+        }
+        JsonArray forcedJson = new JsonArray();
+        forced.forEach(forcedJson::add);
+        JsonArray stepsJson = new JsonArray();
+        for (Step step : steps) {
+            JsonObject stepJson = new JsonObject();
+            stepJson.addProperty("enabled", encode(step.enabled()));
+            stepJson.addProperty("successful", step.successful());
+            if (step.suspects() != null) {
+                stepJson.addProperty("suspects", encode(step.suspects()));
+            }
+            stepsJson.add(stepJson);
+        }
+        JsonObject json = new JsonObject();
+        json.addProperty("version", VERSION);
+        json.addProperty("strategy", strategy.name());
+        json.add("jars", jarsJson);
+        json.add("forced", forcedJson);
+        json.add("steps", stepsJson);
+
+        Path tempFile = sessionFile.resolveSibling(FILE_NAME + ".tmp");
+        Files.writeString(tempFile, json.toString(), StandardCharsets.UTF_8);
+        try {
+            Files.move(tempFile, sessionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, sessionFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param name     The file name of the enabled jar.
+     * @param size     The size of the jar in bytes.
+     * @param modified The last-modified time of the jar. Renaming doesn't change it.
+     */
+    public record JarFingerprint(String name, long size, long modified) {
+        public static JarFingerprint of(File jar) {
+            return new JarFingerprint(jar.getName(), jar.length(), jar.lastModified());
+        }
+    }
+
+    /**
+     * @param enabled    Every mod that was enabled for the test.
+     * @param successful If the problem was gone.
+     * @param suspects   The candidates a crash named after the test, if any.
+     */
+    public record Step(BitSet enabled, boolean successful, @Nullable BitSet suspects) {
+    }
+}
@@ -0,0 +1,281 @@
+package com.skycatdev.binarysearchtool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Switches mods by linking them into a separate staging folder, so the user's mods folder is never changed.
+ * Enabled mods have a hard link in the staging folder, or a symbolic link if that doesn't work (like across drives),
+ * or a copy if neither works. Disabled mods just don't have one.
+ * Only jars this made are ever deleted. Every one is listed in {@link StagingSwitcher#MARKER_FILE_NAME} before it's
+ * made, and links can also be told apart by looking at them, in case the list is lost. The list is written once per
+ * batch, so use {@link StagingSwitcher#beforeEnabling} and {@link StagingSwitcher#afterDisabling} around batches.
+ */
+public class StagingSwitcher implements ModSwitcher {
+    /**
+     * Lists the jars in the staging folder that were made by a switcher, one name per line
+     */
+    public static final String MARKER_FILE_NAME = ".binarysearchtool_staged";
+    private final Path modsPath;
+    private final Path stagingPath;
+    /**
+     * The names of the jars in the staging folder that may have been made by a switcher. Everything written in the
+     * marker file, plus names removed since it was last written.
+     */
+    private final TreeSet<String> staged = new TreeSet<>();
+    /**
+     * If names were removed from {@link StagingSwitcher#staged} since the marker file was written
+     */
+    private boolean markerStale = false;
+
+    /**
+     * @param modsPath    The user's mods folder.
+     * @param stagingPath The folder to load mods from for tests. Made if it doesn't exist.
+     * @throws IllegalArgumentException If the staging folder is the mods folder, or inside it.
+     */
+    public StagingSwitcher(Path modsPath, Path stagingPath) throws IllegalArgumentException {
+        checkFolders(modsPath, stagingPath);
+        this.modsPath = modsPath;
+        this.stagingPath = stagingPath;
+    }
+
+    /**
+     * Makes sure switching mods in the staging folder can't touch the mods folder.
+     *
+     * @throws IllegalArgumentException If the staging folder is the mods folder, or inside it. The message says which.
+     */
+    public static void checkFolders(Path modsPath, Path stagingPath) throws IllegalArgumentException {
+        Path realMods;
+        Path realStaging;
+        try {
+            realMods = realPath(modsPath);
+            realStaging = realPath(stagingPath);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Couldn't check the staging folder: " + e.getMessage(), e);
+        }
+        if (realStaging.equals(realMods)) {
+            throw new IllegalArgumentException("The staging folder can't be the mods folder");
+        }
+        if (realStaging.startsWith(realMods)) {
+            throw new IllegalArgumentException("The staging folder can't be inside the mods folder");
+        }
+    }
+
+    /**
+     * Like {@link Path#toRealPath}, but for a path that may not exist yet. The part that exists is resolved, and the
+     * rest is added back on.
+     */
+    static Path realPath(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath().normalize();
+        Path existing = absolute;
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null) {
+            return absolute;
+        }
+        return existing.toRealPath().resolve(existing.relativize(absolute).toString());
+    }
+
+    @Override
+    public Path folder() {
+        return stagingPath;
+    }
+
+    @Override
+    public Boolean isEnabled(Set<String> fileNames, Mod mod) {
+        return fileNames.contains(mod.jarName());
+    }
+
+    /**
+     * @return If the jar in the staging folder was made by a switcher, so it's safe to delete.
+     */
+    private boolean isStaged(Path jar) {
+        String jarName = jar.getFileName().toString();
+        synchronized (staged) {
+            if (staged.contains(jarName)) {
+                return true;
+            }
+        }
+        if (Files.isSymbolicLink(jar)) {
+            return true;
+        }
+        // A hard link to the jar in the mods folder is the same file
+        try {
+            Object linkKey = Files.readAttributes(jar, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).fileKey();
+            Path original = modsPath.resolve(jarName);
+            return linkKey != null && Files.exists(original) && Objects.equals(linkKey, Files.readAttributes(original, BasicFileAttributes.class).fileKey());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Makes the staging folder, and removes jars left from an earlier search. Jars a switcher didn't make are left
+     * alone.
+     *
+     * @param mods The mods that may be linked.
+     * @return The names of jars in the staging folder that weren't made by a switcher. They would be loaded in every
+     * test.
+     */
+    public List<String> prepare(List<Mod> mods) throws IOException {
+        Files.createDirectories(stagingPath);
+        Path marker = stagingPath.resolve(MARKER_FILE_NAME);
+        synchronized (staged) {
+            staged.clear();
+            if (Files.exists(marker)) {
+                for (String line : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        staged.add(line);
+                    }
+                }
+            }
+        }
+        Set<String> jarNames = new HashSet<>();
+        mods.forEach((mod) -> jarNames.add(mod.jarName()));
+        ArrayList<String> strangers = new ArrayList<>();
+        try (DirectoryStream<Path> jars = Files.newDirectoryStream(stagingPath, "*.jar")) {
+            for (Path jar : jars) {
+                String jarName = jar.getFileName().toString();
+                if (jarNames.contains(jarName) && isStaged(jar)) {
+                    Files.delete(jar);
+                } else {
+                    strangers.add(jarName);
+                }
+            }
+        }
+        synchronized (staged) {
+            staged.clear();
+            writeMarker();
+        }
+        return strangers;
+    }
+
+    /**
+     * Writes the names of every jar that's about to be made, so the whole batch is one write.
+     */
+    @Override
+    public void beforeEnabling(List<Mod> mods) throws IOException {
+        synchronized (staged) {
+            ArrayList<String> added = new ArrayList<>();
+            for (Mod mod : mods) {
+                if (staged.add(mod.jarName())) {
+                    added.add(mod.jarName());
+                }
+            }
+            if (added.isEmpty()) {
+                return;
+            }
+            try {
+                writeMarker();
+            } catch (IOException e) {
+                added.forEach(staged::remove);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Takes the names of the jars that were just deleted out of the marker file.
+     */
+    @Override
+    public void afterDisabling() throws IOException {
+        synchronized (staged) {
+            if (markerStale) {
+                writeMarker();
+            }
+        }
+    }
+
+    /**
+     * Must hold the lock on {@link StagingSwitcher#staged}.
+     */
+    private void writeMarker() throws IOException {
+        Path marker = stagingPath.resolve(MARKER_FILE_NAME);
+        Path temp = stagingPath.resolve(MARKER_FILE_NAME + ".tmp");
+        Files.write(temp, staged, StandardCharsets.UTF_8);
+        Files.move(temp, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        markerStale = false;
+    }
+
+    @Override
+    public boolean touchesModsFolder() {
+        return false;
+    }
+
+    @Override
+    public boolean tryDisable(Mod mod) {
+        Path link = stagingPath.resolve(mod.jarName());
+        try {
+            if (!Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+                return true;
+            }
+            if (!isStaged(link)) {
+                // Not ours to delete
+                Log.warn(mod.jarName() + " in the staging folder wasn't made by the search, so it won't be removed");
+                return false;
+            }
+            Files.delete(link);
+            // Written by afterDisabling. Until then, the marker only lists a jar that's gone, which is harmless.
+            synchronized (staged) {
+                if (staged.remove(mod.jarName())) {
+                    markerStale = true;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean tryEnable(Mod mod) {
+        Path link = stagingPath.resolve(mod.jarName());
+        if (Files.exists(link)) {
+            return true;
+        }
+        // Written down first, so a jar is never left without its name in the marker. Usually already done by
+        // beforeEnabling, for the whole batch.
+        synchronized (staged) {
+            if (staged.add(mod.jarName())) {
+                try {
+                    writeMarker();
+                } catch (IOException e) {
+                    staged.remove(mod.jarName());
+                    return false;
+                }
+            }
+        }
+        Path jar = modsPath.resolve(mod.jarName()).toAbsolutePath();
+        try {
+            Files.createLink(link, jar);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Probably on another drive, or the filesystem doesn't do hard links
+        }
+        try {
+            Files.createSymbolicLink(link, jar);
+            return true;
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Windows needs special permission for these
+        }
+        try {
+            Files.copy(jar, link);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
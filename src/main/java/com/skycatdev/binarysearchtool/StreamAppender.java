@@ -0,0 +1,58 @@
+package com.skycatdev.binarysearchtool;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Prints log entries to a stream, like the console or a log file. Not thread-safe, so it's usually behind an
+ * {@link AsyncAppender}.
+ */
+public class StreamAppender implements Log.Appender {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private final PrintStream stream;
+    /**
+     * If the time, level, and thread should be printed too. Files want them, the console doesn't.
+     */
+    private final boolean detailed;
+
+    public StreamAppender(PrintStream stream, boolean detailed) {
+        this.stream = stream;
+        this.detailed = detailed;
+    }
+
+    /**
+     * Makes an appender that writes a detailed log to a file, replacing what's there. Useful to attach to bug reports.
+     */
+    public static StreamAppender toFile(Path file) throws IOException {
+        return new StreamAppender(new PrintStream(new BufferedOutputStream(Files.newOutputStream(file)), false, StandardCharsets.UTF_8), true);
+    }
+
+    @Override
+    public void append(Log.Entry entry) {
+        if (detailed) {
+            stream.printf("%s %-5s [%s] %s%n", TIME_FORMAT.format(Instant.ofEpochMilli(entry.time())), entry.level(), entry.thread(), entry.message());
+        } else {
+            stream.println(entry.message());
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (stream != System.out && stream != System.err) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void flush() {
+        stream.flush();
+    }
+}
@@ -0,0 +1,16 @@
+package com.skycatdev.binarysearchtool;
+
+import java.io.IOException;
+
+/**
+ * Answers "is the problem fixed?" without asking anyone, for example by launching the game and watching what it does.
+ */
+public interface TestOracle {
+    /**
+     * Runs a test with the mods that are enabled right now. Blocks until it's done.
+     *
+     * @return If the problem was gone.
+     * @throws IOException If the test couldn't be run at all.
+     */
+    boolean test() throws IOException, InterruptedException;
+}
@@ -12,6 +12,7 @@ public class OptionsPane extends JTabbedPane {
         super();
         this.searchHandler = searchHandler;
         addTab("Mods", createModsPanel());
+        addTab("Search", createSearchPanel());
     }
 
     /**
@@ -23,4 +24,14 @@ public class OptionsPane extends JTabbedPane {
         panel.add(new ModsPanel(searchHandler), BorderLayout.CENTER);
         return panel;
     }
+
+    /**
+     * Creates a panel with a label and a {@link SearchPanel} in it.
+     */
+    private JPanel createSearchPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel("Choose how to search"), BorderLayout.NORTH);
+        panel.add(new SearchPanel(searchHandler), BorderLayout.CENTER);
+        return panel;
+    }
 }
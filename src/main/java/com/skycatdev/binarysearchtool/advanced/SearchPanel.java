@@ -0,0 +1,40 @@
+package com.skycatdev.binarysearchtool.advanced;
+
+import com.skycatdev.binarysearchtool.SearchHandler;
+import com.skycatdev.binarysearchtool.strategy.SearchStrategy;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+
+public class SearchPanel extends JPanel {
+    protected final SearchHandler searchHandler;
+    private final JComboBox<SearchStrategy.Type> strategySelectionBox;
+
+    public SearchPanel(SearchHandler searchHandler) {
+        super();
+        this.searchHandler = searchHandler;
+        setLayout(new GridBagLayout());
+        strategySelectionBox = new JComboBox<>(SearchStrategy.Type.values());
+        GridBagConstraints strategySelectionBoxConstraints = new GridBagConstraints();
+        strategySelectionBoxConstraints.gridx = 0;
+        strategySelectionBoxConstraints.gridy = 0;
+        strategySelectionBox.setRenderer((list, value, index, isSelected, cellHasFocus) -> new JLabel(value.displayName));
+        add(strategySelectionBox, strategySelectionBoxConstraints);
+
+        JButton useButton = new JButton("Use");
+        useButton.addActionListener(this::onUsePressed);
+        GridBagConstraints useButtonConstraints = new GridBagConstraints();
+        useButtonConstraints.gridx = 1;
+        useButtonConstraints.gridy = 0;
+        add(useButton, useButtonConstraints);
+    }
+
+    private void onUsePressed(ActionEvent ignored) {
+        if (searchHandler.setStrategy(strategySelectionBox.getItemAt(strategySelectionBox.getSelectedIndex()))) {
+            JOptionPane.showMessageDialog(this, "Search strategy changed!");
+        } else {
+            JOptionPane.showMessageDialog(this, "The search has already started, so it can't be changed.");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.skycatdev.binarysearchtool.strategy;
+
+import com.skycatdev.binarysearchtool.DependencyGraph;
+import com.skycatdev.binarysearchtool.Log;
+import com.skycatdev.binarysearchtool.Mod;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Splits the candidates in half every time. Assumes one mod (or one unit of mods that need each other) is the problem.
+ */
+public class BisectStrategy implements SearchStrategy {
+    /**
+     * Candidates to test by themselves next, if there's a hint
+     */
+    private @Nullable BitSet suspects = null;
+
+    @Override
+    public void consume(SearchState state, BitSet tested, boolean successful) {
+        if (successful) {
+            state.ruleOut(tested);
+        } else {
+            state.narrowTo(tested);
+        }
+    }
+
+    @Override
+    public int estimateSteps(int candidateCount) {
+        return (int) Math.ceil(Math.log10(candidateCount) / Math.log10(2.0d));
+    }
+
+    /**
+     * The suspects (and what they need) are tested by themselves next. If the crash named the right mod, that's most
+     * of the search done in one step.
+     */
+    @Override
+    public void hint(SearchState state, BitSet suspects) {
+        this.suspects = (BitSet) suspects.clone();
+    }
+
+    @Override
+    public @Nullable BitSet propose(SearchState state) {
+        BitSet candidateMods = state.candidateMods();
+        // Force-enabled mods can need candidates, and those are in every test
+        BitSet alwaysTesting = state.forcedClosure();
+        alwaysTesting.and(candidateMods);
+        if (state.graph().unitsIn(candidateMods) == 1 || alwaysTesting.equals(candidateMods)) {
+            // Either it's one mod, or mods that can't be enabled without each other
+            return null;
+        }
+        if (suspects != null) {
+            BitSet suspected = state.graph().closureOf(suspects);
+            suspected.or(alwaysTesting);
+            suspected.and(candidateMods);
+            suspects = null;
+            if (!suspected.isEmpty() && !suspected.equals(candidateMods)) {
+                Log.debug("Testing " + suspected.cardinality() + " suspected candidates");
+                return suspected;
+            }
+        }
+        return chooseBalancedSplit(state, alwaysTesting);
+    }
+
+    /**
+     * Splits the candidates into one more group than there are tests, and tests all but one of them alone. Whichever
+     * one fails has the problem, or if none do, the one left out does. Units are placed biggest first, each in the
+     * group that's smallest so far.
+     */
+    @Override
+    public @Nullable List<BitSet> proposeParallel(SearchState state, int count) {
+        if (count <= 1) {
+            return SearchStrategy.super.proposeParallel(state, count);
+        }
+        BitSet candidateMods = state.candidateMods();
+        BitSet alwaysTesting = state.forcedClosure();
+        alwaysTesting.and(candidateMods);
+        if (state.graph().unitsIn(candidateMods) == 1 || alwaysTesting.equals(candidateMods)) {
+            return null;
+        }
+        DependencyGraph graph = state.graph();
+        BitSet[] neededCandidates = new BitSet[graph.unitCount()];
+        ArrayList<Integer> units = new ArrayList<>();
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            int unit = graph.unitOf(i);
+            if (neededCandidates[unit] == null) {
+                neededCandidates[unit] = state.neededCandidates(unit);
+                units.add(unit);
+            }
+        }
+        units.sort(Comparator.<Integer>comparingInt((unit) -> -neededCandidates[unit].cardinality())
+                .thenComparing((unit) -> graph.get(graph.members(unit).nextSetBit(0)), Mod.COMPARATOR));
+        ArrayList<BitSet> groups = new ArrayList<>();
+        for (int i = 0; i <= count; i++) {
+            groups.add((BitSet) alwaysTesting.clone());
+        }
+        for (int unit : units) {
+            BitSet smallest = groups.get(0);
+            for (BitSet group : groups) {
+                if (group.cardinality() < smallest.cardinality()) {
+                    smallest = group;
+                }
+            }
+            smallest.or(neededCandidates[unit]);
+        }
+        // The last group is the one left out. The rest are tested, unless they'd tell us nothing.
+        groups.remove(groups.size() - 1);
+        groups.removeIf((group) -> group.isEmpty() || group.equals(candidateMods));
+        if (groups.isEmpty()) {
+            return SearchStrategy.super.proposeParallel(state, count);
+        }
+        // With fewer units than groups, some are just the always-tested candidates
+        List<BitSet> distinctGroups = List.copyOf(new LinkedHashSet<>(groups));
+        Log.debug("Chose " + distinctGroups.size() + " groups of candidates to test at once");
+        return distinctGroups;
+    }
+
+    /**
+     * Chooses candidates to test, so that the test (including the candidates it needs) and the candidates left out are
+     * as close to the same size as we can get. That way each answer rules out about half, whichever way it goes.
+     * Units that need the most candidates are placed first if they fit in half (first-fit decreasing), then the unit
+     * that gets closest to half is added if going a bit over is better than staying under.
+     *
+     * @param alwaysTesting Candidates that are in every test.
+     * @return The candidates to test, or {@code null} if the candidates can't be split.
+     */
+    private @Nullable BitSet chooseBalancedSplit(SearchState state, BitSet alwaysTesting) {
+        DependencyGraph graph = state.graph();
+        BitSet candidateMods = state.candidateMods();
+        int candidateCount = candidateMods.cardinality();
+        // Unit -> The candidates that need to be enabled to enable it
+        BitSet[] neededCandidates = new BitSet[graph.unitCount()];
+        ArrayList<Integer> units = new ArrayList<>();
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            int unit = graph.unitOf(i);
+            if (neededCandidates[unit] == null) {
+                neededCandidates[unit] = state.neededCandidates(unit);
+                units.add(unit);
+            }
+        }
+        units.sort(Comparator.<Integer>comparingInt((unit) -> -neededCandidates[unit].cardinality())
+                .thenComparing((unit) -> graph.get(graph.members(unit).nextSetBit(0)), Mod.COMPARATOR));
+
+        BitSet chosen = (BitSet) alwaysTesting.clone();
+        int chosenCount = chosen.cardinality();
+        BitSet added = new BitSet();
+        for (int unit : units) {
+            if (chosenCount >= candidateCount / 2) {
+                break;
+            }
+            added.clear();
+            added.or(neededCandidates[unit]);
+            added.andNot(chosen);
+            int addedCount = added.cardinality();
+            if (addedCount > 0 && chosenCount + addedCount <= candidateCount / 2) {
+                chosen.or(added);
+                chosenCount += addedCount;
+            }
+        }
+        // The most candidates that could be left after the test. Lower is better.
+        int bestCost = Math.max(chosenCount, candidateCount - chosenCount);
+        int bestUnit = -1;
+        for (int unit : units) {
+            added.clear();
+            added.or(neededCandidates[unit]);
+            added.andNot(chosen);
+            int size = chosenCount + added.cardinality();
+            if (size == chosenCount || size == candidateCount) {
+                continue;
+            }
+            int cost = Math.max(size, candidateCount - size);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestUnit = unit;
+            }
+        }
+        if (bestUnit != -1) {
+            chosen.or(neededCandidates[bestUnit]);
+        }
+        if (chosen.isEmpty() || chosen.equals(candidateMods)) {
+            return null;
+        }
+        Log.debug("Chose " + chosen.cardinality() + " of " + candidateCount + " candidates to test");
+        return chosen;
+    }
+}
@@ -0,0 +1,141 @@
+package com.skycatdev.binarysearchtool.strategy;
+
+import com.skycatdev.binarysearchtool.DependencyGraph;
+import com.skycatdev.binarysearchtool.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds a 1-minimal set of mods that cause the problem together, using delta debugging (ddmin).
+ * Unlike {@link BisectStrategy}, this works when the problem needs two or more mods at once. Removing any one unit from
+ * the result makes the problem go away (mods the rest need can't be removed, so they're part of the result).
+ * <p>
+ * The candidates are split into parts. Everything but each part is tested, then each part alone. If one of those
+ * still has the problem, that's the new set of candidates. If none do, the parts are made smaller, until they're single
+ * units. Leaving parts out is tried first, since when several mods are the problem they're usually in different parts,
+ * and a part alone won't have the problem.
+ */
+public class DeltaDebugStrategy implements SearchStrategy {
+    /**
+     * Tested set -> If the problem was gone. Used so we never ask about the same set twice.
+     */
+    private final HashMap<BitSet, Boolean> results = new HashMap<>();
+    private int granularity = 2;
+    /**
+     * The parts the candidates are split into right now, or {@code null} if they need to be split again.
+     */
+    private @Nullable List<BitSet> parts = null;
+    /**
+     * The next test of this round. Below {@code parts.size()} is everything but a part, after that is a part alone.
+     */
+    private int nextTest = 0;
+    private boolean lastWasComplement = false;
+
+    @Override
+    public void consume(SearchState state, BitSet tested, boolean successful) {
+        results.put((BitSet) tested.clone(), successful);
+        if (!successful) {
+            reduceTo(state, tested, lastWasComplement);
+        }
+    }
+
+    @Override
+    public int estimateSteps(int candidateCount) {
+        // Twice bisecting, which is right when two mods are the problem and they start out in different halves
+        return 2 * (int) Math.ceil(Math.log10(candidateCount) / Math.log10(2.0d));
+    }
+
+    @Override
+    public @Nullable BitSet propose(SearchState state) {
+        while (true) {
+            BitSet candidateMods = state.candidateMods();
+            int unitCount = state.graph().unitsIn(candidateMods);
+            if (unitCount <= 1) {
+                return null;
+            }
+            if (parts == null) {
+                parts = split(state, Math.min(granularity, unitCount));
+                nextTest = 0;
+            }
+            if (nextTest >= 2 * parts.size()) {
+                if (granularity >= unitCount) {
+                    // Every unit has been left out by itself, and the problem went away each time
+                    return null;
+                }
+                granularity = Math.min(granularity * 2, unitCount);
+                parts = null;
+                continue;
+            }
+            boolean complement = nextTest < parts.size();
+            BitSet test = (BitSet) parts.get(nextTest % parts.size()).clone();
+            nextTest++;
+            if (complement) {
+                BitSet rest = (BitSet) candidateMods.clone();
+                rest.andNot(test);
+                test = rest;
+            }
+            // This is what the search handler will actually enable
+            BitSet tested = state.enabledFor(test);
+            tested.and(candidateMods);
+            if (tested.isEmpty() || tested.equals(candidateMods)) {
+                continue; // Nothing to learn, we already know everything has the problem
+            }
+            Boolean known = results.get(tested);
+            if (known == null) {
+                lastWasComplement = complement;
+                return test;
+            }
+            Log.debug("Already tested that set");
+            if (!known) {
+                reduceTo(state, tested, complement);
+            }
+        }
+    }
+
+    private void reduceTo(SearchState state, BitSet tested, boolean complement) {
+        state.narrowTo(tested);
+        granularity = complement ? Math.max(granularity - 1, 2) : 2;
+        parts = null;
+    }
+
+    /**
+     * Splits the candidates into parts of whole units, about the same size.
+     */
+    private List<BitSet> split(SearchState state, int partCount) {
+        DependencyGraph graph = state.graph();
+        BitSet candidateMods = state.candidateMods();
+        ArrayList<BitSet> units = new ArrayList<>();
+        BitSet seenUnits = new BitSet(graph.unitCount());
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            int unit = graph.unitOf(i);
+            if (!seenUnits.get(unit)) {
+                seenUnits.set(unit);
+                BitSet members = (BitSet) graph.members(unit).clone();
+                members.and(candidateMods);
+                units.add(members);
+            }
+        }
+        // Biggest first into the smallest part. The sort is stable, so ties stay in index order.
+        units.sort((a, b) -> Integer.compare(b.cardinality(), a.cardinality()));
+        ArrayList<BitSet> parts = new ArrayList<>(partCount);
+        int[] sizes = new int[partCount];
+        for (int i = 0; i < partCount; i++) {
+            parts.add(new BitSet());
+        }
+        for (BitSet unit : units) {
+            int smallest = 0;
+            for (int i = 1; i < partCount; i++) {
+                if (sizes[i] < sizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            parts.get(smallest).or(unit);
+            sizes[smallest] += unit.cardinality();
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,251 @@
+package com.skycatdev.binarysearchtool.strategy;
+
+import com.skycatdev.binarysearchtool.DependencyGraph;
+import com.skycatdev.binarysearchtool.Log;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Binary search for when answers can be wrong, like when the problem only happens some of the time.
+ * Keeps a probability for each candidate being the problem, and updates it with Bayes' rule after each answer instead
+ * of ruling mods out for good. Each test is chosen to tell us as much as possible (maximum expected information gain),
+ * and the search finishes once one unit is probably the problem.
+ */
+public class ProbabilisticStrategy implements SearchStrategy {
+    /**
+     * Candidates less likely than this (compared to where they started) are called working, so they stop being tested
+     */
+    private static final double RULED_OUT = 1e-6;
+    /**
+     * How much more likely a mod named in a crash is
+     */
+    private static final double SUSPECT_WEIGHT = 4;
+    /**
+     * The chance the problem shows up when the problem mod is enabled
+     */
+    private final double reproduceChance;
+    /**
+     * The chance the problem seems to show up when the problem mod isn't enabled
+     */
+    private final double falseAlarmChance;
+    /**
+     * How likely a unit has to be before we call it the problem
+     */
+    private final double confidence;
+    /**
+     * The mass of a test set that gives the most information
+     */
+    private final double bestMass;
+    /**
+     * Mod index -> Chance it's the problem. Made on the first proposal.
+     */
+    private double @Nullable [] probabilities = null;
+    private double startingProbability = 0;
+
+    /**
+     * @param reproduceChance  The chance the problem shows up when the problem mod is enabled.
+     * @param falseAlarmChance The chance the problem seems to show up when the problem mod isn't enabled.
+     * @param confidence       How likely a unit has to be before we call it the problem.
+     */
+    public ProbabilisticStrategy(double reproduceChance, double falseAlarmChance, double confidence) {
+        if (!(reproduceChance > falseAlarmChance)) {
+            throw new IllegalArgumentException("The problem has to show up more often with the problem mod than without it");
+        }
+        this.reproduceChance = reproduceChance;
+        this.falseAlarmChance = falseAlarmChance;
+        this.confidence = confidence;
+        // Information gain is concave in the mass, so a ternary search finds the best one
+        double low = 0;
+        double high = 1;
+        for (int i = 0; i < 100; i++) {
+            double lowThird = low + (high - low) / 3;
+            double highThird = high - (high - low) / 3;
+            if (informationGain(lowThird) < informationGain(highThird)) {
+                low = lowThird;
+            } else {
+                high = highThird;
+            }
+        }
+        bestMass = (low + high) / 2;
+    }
+
+    private static double entropy(double p) {
+        if (p <= 0 || p >= 1) {
+            return 0;
+        }
+        return -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / Math.log(2);
+    }
+
+    @Override
+    public void consume(SearchState state, BitSet tested, boolean successful) {
+        double[] probabilities = getProbabilities(state);
+        BitSet candidateMods = state.candidateMods();
+        double total = 0;
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            double failureChance = tested.get(i) ? reproduceChance : falseAlarmChance;
+            probabilities[i] *= successful ? 1 - failureChance : failureChance;
+            total += probabilities[i];
+        }
+        BitSet ruledOut = new BitSet();
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            probabilities[i] /= total;
+            if (probabilities[i] < RULED_OUT * startingProbability) {
+                ruledOut.set(i);
+                probabilities[i] = 0;
+            }
+        }
+        if (!ruledOut.isEmpty() && ruledOut.cardinality() < candidateMods.cardinality()) {
+            state.ruleOut(ruledOut);
+            normalize(candidateMods);
+        }
+    }
+
+    /**
+     * Makes the suspects more likely, without ruling anything out, since crashes can name the wrong mod.
+     */
+    @Override
+    public void hint(SearchState state, BitSet suspects) {
+        double[] probabilities = getProbabilities(state);
+        for (int i = suspects.nextSetBit(0); i >= 0; i = suspects.nextSetBit(i + 1)) {
+            probabilities[i] *= SUSPECT_WEIGHT;
+        }
+        normalize(state.candidateMods());
+    }
+
+    @Override
+    public int estimateSteps(int candidateCount) {
+        // Each test gives us at most this many bits
+        return (int) Math.ceil(Math.log10(candidateCount) / Math.log10(2.0d) / informationGain(bestMass));
+    }
+
+    /**
+     * Testing the same set again tells us more, so don't reuse answers.
+     */
+    @Override
+    public boolean trustsAnswers() {
+        return false;
+    }
+
+    private double[] getProbabilities(SearchState state) {
+        if (probabilities == null) {
+            BitSet candidateMods = state.candidateMods();
+            probabilities = new double[state.graph().size()];
+            startingProbability = 1.0 / candidateMods.cardinality();
+            for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+                probabilities[i] = startingProbability;
+            }
+        }
+        return probabilities;
+    }
+
+    /**
+     * @param mass The chance the problem mod is in the test.
+     * @return How many bits we expect to learn from the test.
+     */
+    private double informationGain(double mass) {
+        double failureChance = mass * reproduceChance + (1 - mass) * falseAlarmChance;
+        return entropy(failureChance) - mass * entropy(reproduceChance) - (1 - mass) * entropy(falseAlarmChance);
+    }
+
+    private double massOf(BitSet mods) {
+        assert probabilities != null;
+        double mass = 0;
+        for (int i = mods.nextSetBit(0); i >= 0; i = mods.nextSetBit(i + 1)) {
+            mass += probabilities[i];
+        }
+        return mass;
+    }
+
+    private void normalize(BitSet candidateMods) {
+        assert probabilities != null;
+        double total = massOf(candidateMods);
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            probabilities[i] /= total;
+        }
+    }
+
+    @Override
+    public @Nullable BitSet propose(SearchState state) {
+        getProbabilities(state);
+        DependencyGraph graph = state.graph();
+        BitSet candidateMods = state.candidateMods();
+        // Unit -> The candidates that need to be enabled to enable it
+        BitSet[] neededCandidates = new BitSet[graph.unitCount()];
+        ArrayList<Integer> units = new ArrayList<>();
+        int likeliestUnit = -1;
+        double likeliestMass = -1;
+        for (int i = candidateMods.nextSetBit(0); i >= 0; i = candidateMods.nextSetBit(i + 1)) {
+            int unit = graph.unitOf(i);
+            if (neededCandidates[unit] == null) {
+                neededCandidates[unit] = state.neededCandidates(unit);
+                units.add(unit);
+                BitSet members = (BitSet) graph.members(unit).clone();
+                members.and(candidateMods);
+                double mass = massOf(members);
+                if (mass > likeliestMass) {
+                    likeliestMass = mass;
+                    likeliestUnit = unit;
+                }
+            }
+        }
+        if (likeliestMass >= confidence || units.size() == 1) {
+            Log.info("Found the problem with a chance of " + likeliestMass);
+            state.narrowTo(graph.members(likeliestUnit));
+            return null;
+        }
+
+        // Fill up to the best mass, likeliest units first, then see if one more unit helps
+        BitSet alwaysTesting = state.forcedClosure();
+        alwaysTesting.and(candidateMods);
+        BitSet chosen = (BitSet) alwaysTesting.clone();
+        double chosenMass = massOf(chosen);
+        double[] unitMasses = new double[graph.unitCount()];
+        for (int unit : units) {
+            unitMasses[unit] = massOf(neededCandidates[unit]);
+        }
+        units.sort(Comparator.comparingDouble((Integer unit) -> -unitMasses[unit]));
+        BitSet added = new BitSet();
+        for (int unit : units) {
+            added.clear();
+            added.or(neededCandidates[unit]);
+            added.andNot(chosen);
+            double addedMass = massOf(added);
+            if (!added.isEmpty() && chosenMass + addedMass <= bestMass) {
+                chosen.or(added);
+                chosenMass += addedMass;
+            }
+        }
+        double bestGain = chosen.isEmpty() || chosen.equals(candidateMods) ? -1 : informationGain(chosenMass);
+        int bestUnit = -1;
+        for (int unit : units) {
+            added.clear();
+            added.or(neededCandidates[unit]);
+            added.andNot(chosen);
+            if (added.isEmpty()) {
+                continue;
+            }
+            added.or(chosen);
+            if (added.equals(candidateMods)) {
+                continue;
+            }
+            double gain = informationGain(massOf(added));
+            if (gain > bestGain) {
+                bestGain = gain;
+                bestUnit = unit;
+            }
+        }
+        if (bestUnit != -1) {
+            chosen.or(neededCandidates[bestUnit]);
+        }
+        if (bestGain < 0) {
+            // Can't split it, so this is as good as it gets
+            state.narrowTo(graph.members(likeliestUnit));
+            return null;
+        }
+        Log.debug("Testing a set with a chance of " + massOf(chosen) + " of having the problem");
+        return chosen;
+    }
+}
@@ -0,0 +1,62 @@
+package com.skycatdev.binarysearchtool.strategy;
+
+import com.skycatdev.binarysearchtool.DependencyGraph;
+
+import java.util.BitSet;
+
+/**
+ * The sets a {@link SearchStrategy} works with. These are the live sets of the search, indexed like the graph.
+ *
+ * @param graph         The dependencies between all mods.
+ * @param candidateMods Mods that may or may not be the problem.
+ * @param workingMods   Mods that have been verified as working.
+ * @param forceEnabled  Mods that are enabled in every test. These are also working mods.
+ */
+public record SearchState(DependencyGraph graph, BitSet candidateMods, BitSet workingMods, BitSet forceEnabled) {
+    /**
+     * @return The force-enabled mods and everything they need.
+     */
+    public BitSet forcedClosure() {
+        return graph.closureOf(forceEnabled);
+    }
+
+    /**
+     * @param unit The unit to enable.
+     * @return The candidates that have to be enabled to enable the unit.
+     */
+    public BitSet neededCandidates(int unit) {
+        BitSet needed = (BitSet) graph.closure(unit).clone();
+        needed.and(candidateMods);
+        return needed;
+    }
+
+    /**
+     * @return Every mod that would be enabled to test the candidates: them, the force-enabled mods, and everything
+     * those need.
+     */
+    public BitSet enabledFor(BitSet candidates) {
+        BitSet enabled = graph.closureOf(candidates);
+        enabled.or(forcedClosure());
+        return enabled;
+    }
+
+    /**
+     * Gives up on everything but the candidates given, and calls the rest working.
+     */
+    public void narrowTo(BitSet candidates) {
+        BitSet ruledOut = (BitSet) candidateMods.clone();
+        ruledOut.andNot(candidates);
+        workingMods.or(ruledOut);
+        candidateMods.and(candidates);
+    }
+
+    /**
+     * Calls the mods working, and takes them out of the candidates.
+     */
+    public void ruleOut(BitSet mods) {
+        BitSet ruledOut = (BitSet) mods.clone();
+        ruledOut.and(candidateMods);
+        workingMods.or(ruledOut);
+        candidateMods.andNot(ruledOut);
+    }
+}
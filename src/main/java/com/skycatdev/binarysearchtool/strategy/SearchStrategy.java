@@ -0,0 +1,98 @@
+package com.skycatdev.binarysearchtool.strategy;
+
+import com.skycatdev.binarysearchtool.SearchOptions;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Decides which candidates to test next, and what a test result means.
+ * The {@link com.skycatdev.binarysearchtool.SearchHandler} takes care of dependencies and enabling mods, so a strategy
+ * only has to think about sets of mods.
+ */
+public interface SearchStrategy {
+    /**
+     * Chooses the candidates to test next. The search handler adds the candidates they need, and the force-enabled
+     * candidates, so the set that's tested can be bigger.
+     *
+     * @param state The sets of the search. May be changed, for example to leave only the result as candidates.
+     * @return The candidates to test, or {@code null} if the search is finished. When finished, the candidates are
+     * the result.
+     */
+    @Nullable BitSet propose(SearchState state);
+
+    /**
+     * Suggests candidates that are probably the problem, like mods named in a crash. Strategies that can use it test
+     * them soon. By default, it's ignored.
+     *
+     * @param state    The sets of the search.
+     * @param suspects Candidates that are probably the problem. Don't keep or modify it.
+     */
+    default void hint(SearchState state, BitSet suspects) {
+    }
+
+    /**
+     * Chooses several sets of candidates to test at the same time, in different sandboxes. Each result is given to
+     * {@link SearchStrategy#consume(SearchState, BitSet, boolean)} on its own. By default, there's only one.
+     *
+     * @param state The sets of the search. May be changed, like in {@link SearchStrategy#propose(SearchState)}.
+     * @param count The most tests that can run at once.
+     * @return The sets of candidates to test, or {@code null} if the search is finished.
+     */
+    default @Nullable List<BitSet> proposeParallel(SearchState state, int count) {
+        BitSet proposed = propose(state);
+        return proposed == null ? null : List.of(proposed);
+    }
+
+    /**
+     * Uses the result of a test to update the sets of the search.
+     *
+     * @param state      The sets of the search.
+     * @param tested     The candidates that were enabled for the test. Don't keep or modify it.
+     * @param successful If the problem was gone.
+     */
+    void consume(SearchState state, BitSet tested, boolean successful);
+
+    /**
+     * @param candidateCount How many candidates there are at the start.
+     * @return About how many tests the search should take. Used for progress.
+     */
+    int estimateSteps(int candidateCount);
+
+    /**
+     * @return If the same mods always give the same answer. If not, old answers aren't reused.
+     */
+    default boolean trustsAnswers() {
+        return true;
+    }
+
+    enum Type {
+        /**
+         * {@link BisectStrategy}
+         */
+        BISECT("Binary search (one mod is the problem)"),
+        /**
+         * {@link DeltaDebugStrategy}
+         */
+        DELTA_DEBUG("Delta debugging (a few mods together are the problem)"),
+        /**
+         * {@link ProbabilisticStrategy}
+         */
+        PROBABILISTIC("Noisy binary search (the problem doesn't always happen)");
+
+        public final String displayName;
+
+        Type(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public SearchStrategy create(SearchOptions options) {
+            return switch (this) {
+                case BISECT -> new BisectStrategy();
+                case DELTA_DEBUG -> new DeltaDebugStrategy();
+                case PROBABILISTIC -> new ProbabilisticStrategy(options.reproduceChance(), options.falseAlarmChance(), options.confidence());
+            };
+        }
+    }
+}